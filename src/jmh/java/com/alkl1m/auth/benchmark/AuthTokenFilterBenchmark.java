@@ -0,0 +1,89 @@
+package com.alkl1m.auth.benchmark;
+
+import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.filter.AuthTokenFilter;
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
+import com.alkl1m.auth.service.impl.UserDetailsServiceImpl;
+import com.alkl1m.auth.util.JwtUtils;
+import com.alkl1m.auth.util.SigningKeys;
+import com.alkl1m.auth.util.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк полного прохода AuthTokenFilter с JWT в куке.
+ * Загрузка пользователя из бд заменена моком UserDetailsServiceImpl.
+ *
+ * @author alkl1m
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    @Param({"true", "false"})
+    private boolean stateless;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private AuthTokenFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain filterChain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = BenchmarkFixtures.jwtUtils(SigningKeys.HS256);
+        User user = BenchmarkFixtures.superUser();
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+
+        UserDetailsServiceImpl userDetailsService = Mockito.mock(UserDetailsServiceImpl.class);
+        Mockito.when(userDetailsService.loadUserByUsername(user.getLogin())).thenReturn(userDetails);
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(cacheEnabled, 10000, new SimpleMeterRegistry());
+        filter = new AuthTokenFilter(jwtUtils, userDetailsService, cache,
+                BenchmarkFixtures.securityEventLogger(), BenchmarkFixtures.tokenRevocationService());
+        ReflectionTestUtils.setField(filter, "stateless", stateless);
+
+        request = new MockHttpServletRequest("GET", "/user-roles/superuser");
+        request.setCookies(new Cookie("jwt", jwtUtils.generateTokenFromUserDetails(userDetails)));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, filterChain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.alkl1m.auth.benchmark;
+
+import com.alkl1m.auth.domain.entity.Role;
+import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.domain.enums.ERole;
+import com.alkl1m.auth.repository.RevokedTokenRepository;
+import com.alkl1m.auth.service.SigningKeyService;
+import com.alkl1m.auth.service.TokenRevocationService;
+import com.alkl1m.auth.service.impl.TokenRevocationServiceImpl;
+import com.alkl1m.auth.util.JwtPreValidator;
+import com.alkl1m.auth.util.JwtUtils;
+import com.alkl1m.auth.util.SecurityEventLogger;
+import com.alkl1m.auth.util.SigningKey;
+import com.alkl1m.auth.util.SigningKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Общие объекты для бенчмарков: JwtUtils с ключом в памяти, пустой список отзывов
+ * и пользователь со всеми ролями.
+ *
+ * @author alkl1m
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "YiJW5JhK3uv6q8InoJgQYP3hmOEP/79009Y/6/Xeamxq9DnYSVZzU1m5iFRCNWymmBAmLmYmY2C1KcSqX5aELlN7fkLdJtehwaSjWotfrESvUIap6VI9GyMglmeuBPTfFQMHJM7qhLwZQXHIrA3sRjvSrDHNTffuEHmKqtWuXgIX";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtUtils jwtUtils(String algorithm) {
+        SigningKey activeKey = SigningKeys.HS256.equals(algorithm)
+                ? SigningKeys.hmac(null, SECRET)
+                : SigningKeys.generate(algorithm);
+
+        JwtUtils jwtUtils = new JwtUtils(new StaticSigningKeyService(activeKey),
+                new JwtPreValidator(new SimpleMeterRegistry()),
+                securityEventLogger());
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCookie", "jwt");
+        ReflectionTestUtils.setField(jwtUtils, "jwtRefreshCookie", "jwt-refresh");
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    static SecurityEventLogger securityEventLogger() {
+        return new SecurityEventLogger(1000, 5, new SimpleMeterRegistry());
+    }
+
+    static TokenRevocationService tokenRevocationService() {
+        RevokedTokenRepository repository = Mockito.mock(RevokedTokenRepository.class);
+        Mockito.when(repository.findByExpiresAtAfter(Mockito.any())).thenReturn(List.of());
+
+        TokenRevocationServiceImpl tokenRevocationService = new TokenRevocationServiceImpl(repository);
+        ReflectionTestUtils.setField(tokenRevocationService, "jwtExpirationMs", 3600000L);
+        ReflectionTestUtils.setField(tokenRevocationService, "expectedTokens", 100000);
+        ReflectionTestUtils.setField(tokenRevocationService, "falsePositiveRate", 0.01);
+        tokenRevocationService.init();
+        return tokenRevocationService;
+    }
+
+    static User superUser() {
+        long[] id = {0};
+        Set<Role> roles = Arrays.stream(ERole.values())
+                .map(role -> new Role(++id[0], role))
+                .collect(Collectors.toSet());
+        return new User(1L, "superuser", "superuser@example.com",
+                "$2a$10$Cq4nQiGlSGMSyq5c8G9p7.J7pvJ6gWlo0zNHhsXrRBr/FSfNS2Kl6", roles);
+    }
+
+    /**
+     * Связка ключей в памяти: ротация выпускает ключ того же алгоритма
+     * и оставляет прежние ключи для проверки.
+     */
+    private static final class StaticSigningKeyService implements SigningKeyService {
+
+        private final Map<String, SigningKey> keysByKid = new ConcurrentHashMap<>();
+        private volatile SigningKey activeKey;
+
+        private StaticSigningKeyService(SigningKey activeKey) {
+            this.activeKey = activeKey;
+            keysByKid.put(activeKey.kid(), activeKey);
+        }
+
+        @Override
+        public SigningKey getActiveKey() {
+            return activeKey;
+        }
+
+        @Override
+        public SigningKey findByKid(String kid) {
+            return kid != null ? keysByKid.get(kid) : null;
+        }
+
+        @Override
+        public List<SigningKey> getPublishedKeys() {
+            return keysByKid.values().stream()
+                    .filter(SigningKey::isAsymmetric)
+                    .toList();
+        }
+
+        @Override
+        public synchronized SigningKey rotate() {
+            SigningKey signingKey = SigningKeys.generate(activeKey.algorithm().getId());
+            keysByKid.put(signingKey.kid(), signingKey);
+            activeKey = signingKey;
+            return signingKey;
+        }
+
+    }
+
+}
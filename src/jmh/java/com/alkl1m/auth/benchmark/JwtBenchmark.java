@@ -0,0 +1,78 @@
+package com.alkl1m.auth.benchmark;
+
+import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
+import com.alkl1m.auth.util.JwtUtils;
+import com.alkl1m.auth.util.JwtVerification;
+import com.alkl1m.auth.util.SigningKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки выпуска и проверки JWT.
+ *
+ * @author alkl1m
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({SigningKeys.HS256, SigningKeys.ES256, SigningKeys.EDDSA})
+    private String algorithm;
+
+    private JwtUtils jwtUtils;
+    private User user;
+    private UserDetailsImpl userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = BenchmarkFixtures.jwtUtils(algorithm);
+        user = BenchmarkFixtures.superUser();
+        userDetails = UserDetailsImpl.build(user);
+        token = jwtUtils.generateTokenFromUserDetails(userDetails);
+    }
+
+    @Benchmark
+    public String generateTokenFromUserDetails() {
+        return jwtUtils.generateTokenFromUserDetails(userDetails);
+    }
+
+    @Benchmark
+    public String generateTokenFromUser() {
+        return jwtUtils.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public void validateAndGetLogin(Blackhole blackhole) {
+        blackhole.consume(jwtUtils.validateJwtToken(token));
+        blackhole.consume(jwtUtils.getLoginFromJwtToken(token));
+    }
+
+    @Benchmark
+    public JwtVerification verifyJwtToken() {
+        return jwtUtils.verifyJwtToken(token);
+    }
+
+    @Benchmark
+    public UserDetailsImpl userDetailsBuild() {
+        return UserDetailsImpl.build(user);
+    }
+
+}
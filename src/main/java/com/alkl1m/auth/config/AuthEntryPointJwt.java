@@ -1,10 +1,11 @@
 package com.alkl1m.auth.config;
 
+import com.alkl1m.auth.domain.enums.ESecurityEvent;
+import com.alkl1m.auth.util.SecurityEventLogger;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
@@ -21,9 +22,10 @@ import java.util.Map;
  * @author alkl1m
  */
 @Component
+@RequiredArgsConstructor
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
-    private static final Logger logger = LogManager.getLogger(AuthEntryPointJwt.class);
+    private final SecurityEventLogger securityEventLogger;
 
     /**
      * Вызывается, когда юзер пытается получить доступ к защищенному ресурсу
@@ -38,7 +40,7 @@ public class AuthEntryPointJwt implements AuthenticationEntryPoint {
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
             throws IOException {
-        logger.error("Не удалось авторизировать: {}", authException.getMessage());
+        securityEventLogger.record(ESecurityEvent.UNAUTHORIZED, authException.getMessage());
 
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
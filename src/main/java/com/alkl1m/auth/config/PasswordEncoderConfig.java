@@ -0,0 +1,75 @@
+package com.alkl1m.auth.config;
+
+import com.alkl1m.auth.util.BoundedPasswordEncoder;
+import com.alkl1m.auth.util.PasswordEncoders;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация хеширования паролей. Стоимость BCrypt задается общей для всех узлов
+ * (strength) или подбирается при старте под целевое время хеша на текущей машине
+ * в пределах minStrength..maxStrength. Подобранная стоимость применяется только
+ * к новым хешам: перехеширование при входе запускается по общему порогу
+ * (strength, а без него minStrength), иначе хеши дрейфовали бы к стоимости самого быстрого узла.
+ *
+ * @author alkl1m
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    private static final Logger logger = LogManager.getLogger(PasswordEncoderConfig.class);
+
+    @Value("${application.security.password.algorithm:bcrypt}")
+    private String algorithm;
+
+    @Value("${application.security.password.bcrypt.strength:0}")
+    private int bcryptStrength;
+
+    @Value("${application.security.password.bcrypt.targetHashMs:250}")
+    private long targetHashMs;
+
+    @Value("${application.security.password.bcrypt.minStrength:10}")
+    private int minStrength;
+
+    @Value("${application.security.password.bcrypt.maxStrength:13}")
+    private int maxStrength;
+
+    @Value("${application.security.password.threads:0}")
+    private int threads;
+
+    @Value("${application.security.password.queueCapacity:64}")
+    private int queueCapacity;
+
+    @Value("${application.security.password.maxWaitMs:2000}")
+    private long maxWaitMs;
+
+    @Value("${application.security.password.retryAfterSeconds:1}")
+    private long retryAfterSeconds;
+
+    /**
+     * Метод passwordEncoder создает и возвращает объект PasswordEncoder,
+     * который используется для кодирования паролей пользователей.
+     * Хеширование выполняется в отдельном ограниченном пуле потоков, а не в потоках Tomcat.
+     *
+     * @param meterRegistry реестр метрик пула.
+     * @return объект PasswordEncoder с поддержкой идентификаторов алгоритмов.
+     */
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int strength = bcryptStrength;
+        int upgradeStrength = bcryptStrength;
+        if (strength <= 0) {
+            strength = PasswordEncoders.calibrateBCryptStrength(targetHashMs, minStrength, maxStrength);
+            upgradeStrength = minStrength;
+            logger.info("Стоимость BCrypt подобрана под {} мс: {}, перехеширование ниже {}",
+                    targetHashMs, strength, upgradeStrength);
+        }
+        return new BoundedPasswordEncoder(PasswordEncoders.delegating(algorithm, strength, upgradeStrength), threads,
+                queueCapacity, maxWaitMs, retryAfterSeconds, meterRegistry);
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.alkl1m.auth.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Включает фоновые задачи по расписанию.
+ * Короткие периодические задачи (сброс write-behind очереди, обновление списка
+ * отозванных токенов и ключей подписи, сводка событий) выполняются в общем пуле,
+ * а долгая очистка истекших токенов с паузами между пачками - в отдельном потоке,
+ * чтобы не задерживать их.
+ *
+ * @author alkl1m
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String PURGE_SCHEDULER = "purgeScheduler";
+
+    /**
+     * Общий планировщик задач по расписанию.
+     *
+     * @param poolSize количество потоков.
+     * @return планировщик.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${application.scheduling.poolSize:4}") int poolSize) {
+        return scheduler("scheduling-", poolSize);
+    }
+
+    /**
+     * Отдельный планировщик для очистки истекших токенов.
+     *
+     * @return планировщик с одним потоком.
+     */
+    @Bean(PURGE_SCHEDULER)
+    public ThreadPoolTaskScheduler purgeScheduler() {
+        return scheduler("purge-", 1);
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+
+}
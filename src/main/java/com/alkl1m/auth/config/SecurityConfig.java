@@ -13,7 +13,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -35,15 +34,18 @@ public class SecurityConfig {
     /**
      * Создает и настраивает DaoAuthenticationProvider, который
      * используется для аутентификации юзера с помощью бд.
+     * После успешного входа хеш пароля пересчитывается, если он не соответствует текущей политике.
      *
+     * @param passwordEncoder кодировщик паролей.
      * @return настроенный DaoAuthenticationProvider.
      */
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
 
         authenticationProvider.setUserDetailsService(userDetailsService);
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService);
 
         return authenticationProvider;
     }
@@ -61,27 +63,17 @@ public class SecurityConfig {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
-    /**
-     * Метод passwordEncoder создает и возвращает объект PasswordEncoder,
-     * который используется для кодирования паролей пользователей.
-     *
-     * @return объект PasswordEncoder, настроенный на использование BCrypt.
-     */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     /**
      * Цепочка фильтров безопасности для обработки HTTP-запросов.
      * Определяет обработку исключений и правила авторизации.
      *
-     * @param http объект HttpSecurity для настройки безопасности.
+     * @param http                   объект HttpSecurity для настройки безопасности.
+     * @param authenticationProvider провайдер аутентификации по бд.
      * @return настроенная цепочка фильтров безопасности.
      * @throws Exception если происходит ошибка при настройке цепочки фильтров.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(AbstractHttpConfigurer::disable)
@@ -93,9 +85,12 @@ public class SecurityConfig {
                         auth.requestMatchers("/swagger-ui/**").permitAll()
                                 .requestMatchers("/v3/api-docs/**").permitAll()
                                 .requestMatchers("/auth/**").permitAll()
+                                .requestMatchers("/.well-known/**").permitAll()
                                 .requestMatchers("roles/**").hasAuthority(ERole.ADMIN.name())
+                                .requestMatchers("/keys/**").hasAuthority(ERole.ADMIN.name())
+                                .requestMatchers("/login-throttle/**").hasAuthority(ERole.ADMIN.name())
                                 .anyRequest().authenticated());
-        http.authenticationProvider(authenticationProvider());
+        http.authenticationProvider(authenticationProvider);
         http.addFilterBefore(authenticationJwtTokenFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,58 @@
+package com.alkl1m.auth.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Ключ подписи JWT в связке ключей.
+ * Для HS256 в private_key хранится секрет, public_key пустой.
+ * private_key хранится зашифрованным (см. SigningKeyCipher).
+ * До activates_at ключ только публикуется и проверяет токены, после - подписывает,
+ * пока не наступит retired_at.
+ *
+ * @author alkl1m
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "signing_key")
+public class JwtSigningKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "kid")
+    private String kid;
+
+    @Column(name = "algorithm")
+    private String algorithm;
+
+    @Column(name = "private_key")
+    private String privateKey;
+
+    @Column(name = "public_key")
+    private String publicKey;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "activates_at")
+    private Instant activatesAt;
+
+    @Column(name = "retired_at")
+    private Instant retiredAt;
+
+}
@@ -1,25 +1,31 @@
 package com.alkl1m.auth.domain.entity;
 
+import com.alkl1m.auth.util.TokenHashUtils;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.OneToOne;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.Transient;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
 /**
+ * Refresh токен, он же сессия пользователя на одном устройстве.
+ * У пользователя может быть несколько сессий, их количество ограничивается при входе.
+ * В бд хранится только SHA-256 дайджест токена (token_hash),
+ * сам токен известен лишь при выпуске и при поиске по значению из cookie.
+ *
  * @author alkl1m
  */
 @Data
 @Entity
-@AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "refresh_token")
 public class RefreshToken {
@@ -28,14 +34,44 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
-    @Column(name = "token")
+    @Column(name = "token_hash")
+    private String tokenHash;
+
+    @Transient
     private String token;
 
     @Column(name = "expiry_date")
     private Instant expiryDate;
 
+    @Column(name = "user_agent")
+    private String userAgent;
+
+    @Column(name = "client_ip")
+    private String clientIp;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    public RefreshToken(Long id, User user, String token, Instant expiryDate) {
+        this.id = id;
+        this.user = user;
+        this.expiryDate = expiryDate;
+        this.createdAt = Instant.now();
+        setToken(token);
+    }
+
+    /**
+     * Задает значение токена и пересчитывает его дайджест.
+     *
+     * @param token значение refresh токена.
+     */
+    public void setToken(String token) {
+        this.token = token;
+        this.tokenHash = token != null ? TokenHashUtils.sha256(token) : null;
+    }
+
 }
@@ -0,0 +1,46 @@
+package com.alkl1m.auth.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Семейство подписанных refresh токенов, выпущенных при одном входе.
+ * Каждая ротация увеличивает generation на единицу, поэтому принять можно
+ * только токен последнего поколения. Предъявление более старого токена
+ * означает его повторное использование, и все семейство удаляется.
+ *
+ * @author alkl1m
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "refresh_token_family")
+public class RefreshTokenFamily {
+
+    @Id
+    @Column(name = "family_id")
+    private String familyId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "generation")
+    private int generation;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+}
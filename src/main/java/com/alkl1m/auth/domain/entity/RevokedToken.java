@@ -0,0 +1,47 @@
+package com.alkl1m.auth.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Отзыв access токена.
+ * Запись с jti отзывает один токен, запись без jti отзывает все токены пользователя,
+ * выпущенные не позже revoked_at. Запись нужна, пока не истекут покрываемые ей токены.
+ *
+ * @author alkl1m
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "revoked_token")
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "jti")
+    private String jti;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_at")
+    private Instant revokedAt;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+}
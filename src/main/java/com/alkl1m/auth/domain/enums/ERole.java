@@ -2,6 +2,8 @@ package com.alkl1m.auth.domain.enums;
 
 /**
  * Перечисление ролей для пользователя.
+ * Порядок констант входит в компактный формат ролей в токенах (RoleCodec),
+ * поэтому новые роли добавляются только в конец, существующие не переставляются и не удаляются.
  *
  * @author alkl1m
  */
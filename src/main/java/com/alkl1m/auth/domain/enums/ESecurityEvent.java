@@ -0,0 +1,37 @@
+package com.alkl1m.auth.domain.enums;
+
+/**
+ * Перечисление событий безопасности, которые учитываются и логируются с ограничением частоты.
+ *
+ * @author alkl1m
+ */
+public enum ESecurityEvent {
+    TOKEN_EMPTY,
+    TOKEN_MALFORMED,
+    TOKEN_EXPIRED,
+    TOKEN_UNSUPPORTED,
+    TOKEN_INVALID_SIGNATURE,
+    TOKEN_UNKNOWN_KEY,
+    TOKEN_REVOKED,
+    REFRESH_TOKEN_REUSED,
+    LOGIN_THROTTLED,
+    UNAUTHORIZED,
+    AUTHENTICATION_ERROR;
+
+    /**
+     * Возвращает событие, соответствующее причине отказа в проверке JWT.
+     *
+     * @param failure причина отказа.
+     * @return событие безопасности.
+     */
+    public static ESecurityEvent of(ETokenFailure failure) {
+        return switch (failure) {
+            case EMPTY -> TOKEN_EMPTY;
+            case MALFORMED -> TOKEN_MALFORMED;
+            case EXPIRED -> TOKEN_EXPIRED;
+            case UNSUPPORTED -> TOKEN_UNSUPPORTED;
+            case INVALID_SIGNATURE -> TOKEN_INVALID_SIGNATURE;
+            case UNKNOWN_KEY -> TOKEN_UNKNOWN_KEY;
+        };
+    }
+}
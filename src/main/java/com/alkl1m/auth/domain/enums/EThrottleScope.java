@@ -0,0 +1,11 @@
+package com.alkl1m.auth.domain.enums;
+
+/**
+ * Перечисление ключей, по которым ограничивается число неудачных попыток входа.
+ *
+ * @author alkl1m
+ */
+public enum EThrottleScope {
+    LOGIN,
+    ADDRESS
+}
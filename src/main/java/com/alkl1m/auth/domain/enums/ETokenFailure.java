@@ -0,0 +1,15 @@
+package com.alkl1m.auth.domain.enums;
+
+/**
+ * Перечисление причин, по которым JWT не прошел проверку.
+ *
+ * @author alkl1m
+ */
+public enum ETokenFailure {
+    EMPTY,
+    MALFORMED,
+    EXPIRED,
+    UNSUPPORTED,
+    INVALID_SIGNATURE,
+    UNKNOWN_KEY
+}
@@ -0,0 +1,21 @@
+package com.alkl1m.auth.domain.exception;
+
+import lombok.Getter;
+
+/**
+ * Исключение для случая, когда превышен лимит неудачных попыток входа
+ * по логину или адресу клиента.
+ *
+ * @author alkl1m
+ */
+@Getter
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.alkl1m.auth.domain.exception;
+
+import lombok.Getter;
+
+/**
+ * Исключение для случая, когда пул хеширования паролей перегружен
+ * и запрос не может быть обработан до истечения срока ожидания.
+ *
+ * @author alkl1m
+ */
+@Getter
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+}
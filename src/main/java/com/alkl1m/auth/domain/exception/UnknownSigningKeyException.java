@@ -0,0 +1,16 @@
+package com.alkl1m.auth.domain.exception;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Исключение для JWT, подписанного неизвестным ключом (kid).
+ *
+ * @author alkl1m
+ */
+public class UnknownSigningKeyException extends JwtException {
+
+    public UnknownSigningKeyException(String kid) {
+        super(String.format("Unknown signing key: %s", kid));
+    }
+
+}
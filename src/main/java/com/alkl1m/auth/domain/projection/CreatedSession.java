@@ -0,0 +1,25 @@
+package com.alkl1m.auth.domain.projection;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Результат создания сессии: id нового refresh токена и дайджесты вытесненных сессий.
+ *
+ * @author alkl1m
+ */
+public interface CreatedSession {
+
+    Long getId();
+
+    /**
+     * @return дайджесты вытесненных токенов через запятую или null, если ничего не вытеснено.
+     */
+    String getEvicted();
+
+    default List<String> getEvictedHashes() {
+        String evicted = getEvicted();
+        return evicted == null || evicted.isEmpty() ? List.of() : Arrays.asList(evicted.split(","));
+    }
+
+}
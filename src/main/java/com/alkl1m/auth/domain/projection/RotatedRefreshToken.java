@@ -0,0 +1,11 @@
+package com.alkl1m.auth.domain.projection;
+
+/**
+ * Результат ротации refresh токена: новый токен и данные для выпуска access токена.
+ *
+ * @param token  новый refresh токен.
+ * @param claims данные пользователя для access токена.
+ * @author alkl1m
+ */
+public record RotatedRefreshToken(String token, TokenClaims claims) {
+}
@@ -0,0 +1,27 @@
+package com.alkl1m.auth.domain.projection;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Данные пользователя, нужные для выпуска access токена, без загрузки сущности User.
+ *
+ * @author alkl1m
+ */
+public interface TokenClaims {
+
+    Long getId();
+
+    String getLogin();
+
+    /**
+     * @return названия ролей через запятую или null, если ролей нет.
+     */
+    String getRoles();
+
+    default List<String> getRoleNames() {
+        String roles = getRoles();
+        return roles == null || roles.isEmpty() ? List.of() : Arrays.asList(roles.split(","));
+    }
+
+}
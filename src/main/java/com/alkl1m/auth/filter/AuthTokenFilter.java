@@ -1,14 +1,22 @@
 package com.alkl1m.auth.filter;
 
+import com.alkl1m.auth.domain.enums.ESecurityEvent;
+import com.alkl1m.auth.service.TokenRevocationService;
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
 import com.alkl1m.auth.service.impl.UserDetailsServiceImpl;
 import com.alkl1m.auth.util.JwtUtils;
+import com.alkl1m.auth.util.JwtVerification;
+import com.alkl1m.auth.util.SecurityEventLogger;
+import com.alkl1m.auth.util.VerifiedToken;
+import com.alkl1m.auth.util.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,6 +29,13 @@ import java.io.IOException;
 /**
  * Фильтрация HTTP-запросов и проверка наличия и валидности JWT в запросах.
  * Извлекает токен из куки, проверяет его и устанавливает аутентификацию для пользователя.
+ * В stateless режиме принципал строится из claims токена без обращения к бд,
+ * загрузка пользователя из бд остается как опциональный режим.
+ * Отзыв токена проверяется по зеркалу списка отзывов в памяти, в том числе для токенов из кэша.
+ * Если задано slidingWindowMs, токен, до истечения которого осталось меньше этого окна,
+ * перевыпускается из его же claims в cookie того же ответа, без отдельного запроса на обновление.
+ * Перевыпуск сохраняет время исходной аутентификации (auth_time) и прекращается,
+ * когда с него прошло refreshExpirationMs, поэтому сессия не продлевается бесконечно.
  *
  * @author alkl1m
  */
@@ -30,8 +45,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final UserDetailsServiceImpl userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SecurityEventLogger securityEventLogger;
+    private final TokenRevocationService tokenRevocationService;
 
-    private static final Logger logger = LogManager.getLogger(AuthTokenFilter.class);
+    @Value("${application.security.jwt.stateless:true}")
+    private boolean stateless;
+
+    @Value("${application.security.jwt.slidingWindowMs:0}")
+    private long slidingWindowMs;
+
+    @Value("${application.security.jwt.refreshExpirationMs}")
+    private long refreshExpirationMs;
 
     /**
      * Фильтр для запроса. Проверяет наличие JWT в запросе и,
@@ -48,10 +73,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String login = jwtUtils.getLoginFromJwtToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(login);
-
+            VerifiedToken verifiedToken = jwt != null ? authenticate(jwt) : null;
+            if (verifiedToken != null) {
+                UserDetails userDetails = verifiedToken.userDetails();
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails,
                                 null,
@@ -59,13 +83,88 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                slideExpiration(verifiedToken, response);
             }
         } catch (Exception e) {
-            logger.error(String.format("Не получается выполнить аутентификацию юзеру: %s", e));
+            securityEventLogger.record(ESecurityEvent.AUTHENTICATION_ERROR, e);
         }
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Возвращает принципала для токена: из кэша проверенных токенов,
+     * либо после проверки подписи. Отозванные токены отклоняются.
+     *
+     * @param jwt JWT токен из куки.
+     * @return проверенный токен или null, если токен не валиден или отозван.
+     */
+    private VerifiedToken authenticate(String jwt) {
+        VerifiedToken cached = verifiedTokenCache.get(jwt);
+        if (cached != null) {
+            return isRevoked(cached.jti(), cached.userDetails().getId(), cached.issuedAtMs())
+                    ? null
+                    : cached;
+        }
+
+        JwtVerification verification = jwtUtils.verifyJwtToken(jwt);
+        if (!verification.isValid()) {
+            return null;
+        }
+        Claims claims = verification.claims();
+        if (isRevoked(claims.getId(), claims.get("id", Long.class), VerifiedToken.issuedAtMs(claims))) {
+            return null;
+        }
+        return loadUserDetails(jwt, claims);
+    }
+
+    /**
+     * Строит принципала из claims токена. Если stateless режим выключен
+     * или в токене нет id пользователя, загружает пользователя из бд.
+     * Кэшируются только принципалы, построенные из claims.
+     *
+     * @param jwt    проверенный JWT токен.
+     * @param claims claims проверенного JWT токена.
+     * @return проверенный токен с данными пользователя.
+     */
+    private VerifiedToken loadUserDetails(String jwt, Claims claims) {
+        if (stateless) {
+            UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+            if (userDetails.getId() != null) {
+                VerifiedToken verifiedToken = VerifiedToken.of(userDetails, claims);
+                verifiedTokenCache.put(jwt, verifiedToken);
+                return verifiedToken;
+            }
+        }
+        return VerifiedToken.of((UserDetailsImpl) userDetailsService.loadUserByUsername(claims.getSubject()), claims);
+    }
+
+    /**
+     * Перевыпускает access токен, если до его истечения осталось меньше slidingWindowMs
+     * и с исходной аутентификации прошло меньше refreshExpirationMs.
+     * Новый токен строится из принципала текущего, без обращения к бд, и наследует его auth_time.
+     *
+     * @param verifiedToken проверенный токен.
+     * @param response      ответ, в который добавляется новая cookie.
+     */
+    private void slideExpiration(VerifiedToken verifiedToken, HttpServletResponse response) {
+        long now = System.currentTimeMillis();
+        if (slidingWindowMs <= 0 || verifiedToken.expiresAtMs() <= 0
+                || verifiedToken.expiresAtMs() - now > slidingWindowMs
+                || now - verifiedToken.authTimeMs() >= refreshExpirationMs) {
+            return;
+        }
+        response.addHeader(HttpHeaders.SET_COOKIE,
+                jwtUtils.generateJwtCookie(verifiedToken.userDetails(), verifiedToken.authTimeMs()).toString());
+    }
+
+    private boolean isRevoked(String jti, Long userId, long issuedAtMs) {
+        if (tokenRevocationService.isRevoked(jti, userId, issuedAtMs)) {
+            securityEventLogger.record(ESecurityEvent.TOKEN_REVOKED, jti);
+            return true;
+        }
+        return false;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         return jwtUtils.getJwtFromCookies(request);
     }
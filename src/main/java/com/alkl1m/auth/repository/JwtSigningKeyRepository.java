@@ -0,0 +1,37 @@
+package com.alkl1m.auth.repository;
+
+import com.alkl1m.auth.domain.entity.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author alkl1m
+ */
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, Long> {
+
+    @Query("select k from JwtSigningKey k where k.retiredAt is null or k.retiredAt > :retiredAfter order by k.createdAt")
+    List<JwtSigningKey> findUsable(@Param("retiredAfter") Instant retiredAfter);
+
+    @Modifying
+    @Query("update JwtSigningKey k set k.retiredAt = :retiredAt where k.retiredAt is null and k.kid <> :activeKid")
+    int retireAllExcept(@Param("activeKid") String activeKid, @Param("retiredAt") Instant retiredAt);
+
+    boolean existsByKid(String kid);
+
+    /**
+     * Берет advisory lock до конца текущей транзакции, чтобы узлы,
+     * стартующие одновременно, сверяли связку ключей по очереди.
+     *
+     * @param lockId идентификатор блокировки.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:lockId)) l", nativeQuery = true)
+    Integer lock(@Param("lockId") long lockId);
+
+}
@@ -0,0 +1,86 @@
+package com.alkl1m.auth.repository;
+
+import com.alkl1m.auth.domain.entity.RefreshTokenFamily;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * @author alkl1m
+ */
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, String> {
+
+    /**
+     * Вставляет новое семейство без предварительного чтения по id.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO refresh_token_family (family_id, user_id, generation, expires_at, created_at)
+            VALUES (:familyId, :userId, 0, :expiresAt, :now)
+            """, nativeQuery = true)
+    int insert(@Param("familyId") String familyId,
+               @Param("userId") Long userId,
+               @Param("expiresAt") Instant expiresAt,
+               @Param("now") Instant now);
+
+    /**
+     * Переводит семейство на следующее поколение, только если предъявлен токен
+     * текущего поколения и семейство не истекло, и возвращает id, логин и роли пользователя.
+     *
+     * @param familyId   id семейства.
+     * @param generation поколение предъявленного токена.
+     * @param expiresAt  срок действия нового токена.
+     * @param now        текущий момент.
+     * @return данные пользователя или пустой Optional, если поколение устарело или семейства нет.
+     */
+    @Transactional
+    @Query(value = """
+            WITH advanced AS (
+                UPDATE refresh_token_family
+                SET generation = generation + 1, expires_at = :expiresAt
+                WHERE family_id = :familyId AND generation = :generation AND expires_at > :now
+                RETURNING user_id
+            )
+            SELECT u.id AS id, u.login AS login, string_agg(r.name, ',') AS roles
+            FROM advanced a
+            JOIN users u ON u.id = a.user_id
+            LEFT JOIN user_to_role ur ON ur.user_id = u.id
+            LEFT JOIN user_role r ON r.id = ur.user_role
+            GROUP BY u.id, u.login
+            """, nativeQuery = true)
+    Optional<TokenClaims> advance(@Param("familyId") String familyId,
+                                  @Param("generation") int generation,
+                                  @Param("expiresAt") Instant expiresAt,
+                                  @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshTokenFamily f where f.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RefreshTokenFamily f where f.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_token_family
+            WHERE family_id IN (SELECT family_id FROM refresh_token_family
+                                WHERE expires_at < :now
+                                ORDER BY expires_at
+                                LIMIT :batchSize
+                                FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
+
+}
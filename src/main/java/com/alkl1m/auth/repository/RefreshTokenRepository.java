@@ -1,11 +1,18 @@
 package com.alkl1m.auth.repository;
 
 import com.alkl1m.auth.domain.entity.RefreshToken;
-import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.domain.projection.CreatedSession;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.util.TokenHashUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -14,9 +21,130 @@ import java.util.Optional;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Находит refresh токен по значению через уникальный индекс по дайджесту.
+     * У найденной сущности восстанавливается значение токена.
+     *
+     * @param token значение refresh токена.
+     * @return найденный токен или пустой Optional.
+     */
+    default Optional<RefreshToken> findByToken(String token) {
+        return findByTokenHash(TokenHashUtils.sha256(token))
+                .map(refreshToken -> {
+                    refreshToken.setToken(token);
+                    return refreshToken;
+                });
+    }
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Query("select t from RefreshToken t where t.user.id = :userId order by t.createdAt desc")
+    List<RefreshToken> findSessions(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
 
     @Modifying
-    int deleteByUser(User user);
+    @Query("delete from RefreshToken t where t.id = :id and t.user.id = :userId")
+    int deleteSession(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Создает сессию и вытесняет самые старые сессии пользователя одним запросом.
+     * Вставленная строка в подзапросе вытеснения не видна, поэтому keep задает
+     * число оставляемых прежних сессий.
+     *
+     * @param userId     id пользователя.
+     * @param tokenHash  дайджест нового токена.
+     * @param expiryDate срок действия нового токена.
+     * @param userAgent  User-Agent устройства.
+     * @param clientIp   IP адрес клиента.
+     * @param createdAt  время создания.
+     * @param keep       сколько самых новых прежних сессий оставить.
+     * @return id новой сессии и дайджесты вытесненных.
+     */
+    @Transactional
+    @Query(value = """
+            WITH evicted AS (
+                DELETE FROM refresh_token
+                WHERE id IN (SELECT id FROM refresh_token
+                             WHERE user_id = :userId
+                             ORDER BY created_at DESC
+                             OFFSET :keep)
+                RETURNING token_hash
+            ), created AS (
+                INSERT INTO refresh_token (user_id, token_hash, expiry_date, user_agent, client_ip, created_at)
+                VALUES (:userId, :tokenHash, :expiryDate, :userAgent, :clientIp, :createdAt)
+                RETURNING id
+            )
+            SELECT c.id AS id, (SELECT string_agg(e.token_hash, ',') FROM evicted e) AS evicted
+            FROM created c
+            """, nativeQuery = true)
+    CreatedSession createSession(@Param("userId") Long userId,
+                                 @Param("tokenHash") String tokenHash,
+                                 @Param("expiryDate") Instant expiryDate,
+                                 @Param("userAgent") String userAgent,
+                                 @Param("clientIp") String clientIp,
+                                 @Param("createdAt") Instant createdAt,
+                                 @Param("keep") int keep);
+
+    /**
+     * Удаляет пачку истекших токенов, начиная с самых старых.
+     * Строки, заблокированные другими транзакциями (например, очисткой на другом узле), пропускаются.
+     *
+     * @param now       момент, до которого токены считаются истекшими.
+     * @param batchSize максимальный размер пачки.
+     * @return количество удаленных токенов.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_token
+            WHERE id IN (SELECT id FROM refresh_token
+                         WHERE expiry_date < :now
+                         ORDER BY expiry_date
+                         LIMIT :batchSize
+                         FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
+
+    /**
+     * Ротация refresh токена одним запросом: удаляет токен по дайджесту,
+     * если он не истек - вставляет преемника в ту же сессию устройства,
+     * и возвращает id, логин и роли пользователя.
+     *
+     * @param tokenHash       дайджест текущего токена.
+     * @param successorHash   дайджест нового токена.
+     * @param successorExpiry срок действия нового токена.
+     * @param now             текущий момент.
+     * @return данные пользователя или пустой Optional, если токен не найден или истек.
+     */
+    @Transactional
+    @Query(value = """
+            WITH consumed AS (
+                DELETE FROM refresh_token
+                WHERE token_hash = :tokenHash
+                RETURNING user_id, expiry_date, user_agent, client_ip
+            ), successor AS (
+                INSERT INTO refresh_token (user_id, token_hash, expiry_date, user_agent, client_ip, created_at)
+                SELECT user_id, :successorHash, :successorExpiry, user_agent, client_ip, :now
+                FROM consumed
+                WHERE expiry_date > :now
+                RETURNING user_id
+            )
+            SELECT u.id AS id, u.login AS login, string_agg(r.name, ',') AS roles
+            FROM successor s
+            JOIN users u ON u.id = s.user_id
+            LEFT JOIN user_to_role ur ON ur.user_id = u.id
+            LEFT JOIN user_role r ON r.id = ur.user_role
+            GROUP BY u.id, u.login
+            """, nativeQuery = true)
+    Optional<TokenClaims> rotate(@Param("tokenHash") String tokenHash,
+                                 @Param("successorHash") String successorHash,
+                                 @Param("successorExpiry") Instant successorExpiry,
+                                 @Param("now") Instant now);
 
 }
@@ -0,0 +1,37 @@
+package com.alkl1m.auth.repository;
+
+import com.alkl1m.auth.domain.entity.RefreshToken;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище refresh токенов, через которое RefreshTokenService читает и изменяет сессии.
+ * По умолчанию запросы сразу уходят в бд (JpaRefreshTokenStore), альтернативная
+ * реализация обслуживает чтения из памяти и пишет в бд пачками.
+ *
+ * @author alkl1m
+ */
+public interface RefreshTokenStore {
+
+    Optional<RefreshToken> findByToken(String token);
+
+    RefreshToken save(RefreshToken refreshToken);
+
+    void delete(RefreshToken refreshToken);
+
+    int deleteByTokenHash(String tokenHash);
+
+    int deleteByUserId(Long userId);
+
+    List<RefreshToken> findSessions(Long userId);
+
+    int deleteSession(Long id, Long userId);
+
+    List<String> createSession(RefreshToken refreshToken, int keep);
+
+    Optional<TokenClaims> rotate(String tokenHash, String successorHash, Instant successorExpiry, Instant now);
+
+}
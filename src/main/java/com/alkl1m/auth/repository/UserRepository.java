@@ -1,7 +1,12 @@
 package com.alkl1m.auth.repository;
 
 import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,10 +17,37 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    Optional<User> findByLogin (String login);
+    /**
+     * Находит пользователя вместе с ролями одним запросом.
+     *
+     * @param login логин пользователя.
+     * @return пользователь или пустой Optional.
+     */
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findByLogin(String login);
 
     Boolean existsByLogin(String login);
 
     Boolean existsByEmail(String email);
 
+    @Modifying
+    @Query("update User u set u.password = :password where u.login = :login")
+    int updatePasswordByLogin(@Param("login") String login, @Param("password") String password);
+
+    /**
+     * Возвращает id, логин и роли пользователя одним запросом без загрузки сущностей.
+     *
+     * @param id id пользователя.
+     * @return данные для выпуска access токена или пустой Optional.
+     */
+    @Query(value = """
+            SELECT u.id AS id, u.login AS login, string_agg(r.name, ',') AS roles
+            FROM users u
+            LEFT JOIN user_to_role ur ON ur.user_id = u.id
+            LEFT JOIN user_role r ON r.id = ur.user_role
+            WHERE u.id = :id
+            GROUP BY u.id, u.login
+            """, nativeQuery = true)
+    Optional<TokenClaims> findTokenClaimsById(@Param("id") Long id);
+
 }
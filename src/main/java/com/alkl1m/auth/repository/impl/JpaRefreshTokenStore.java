@@ -0,0 +1,85 @@
+package com.alkl1m.auth.repository.impl;
+
+import com.alkl1m.auth.domain.entity.RefreshToken;
+import com.alkl1m.auth.domain.projection.CreatedSession;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.repository.RefreshTokenRepository;
+import com.alkl1m.auth.repository.RefreshTokenStore;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище refresh токенов, каждая операция которого сразу выполняется в бд
+ * через RefreshTokenRepository.
+ *
+ * @author alkl1m
+ */
+@Component
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    public JpaRefreshTokenStore(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    @Override
+    public Optional<RefreshToken> findByToken(String token) {
+        return refreshTokenRepository.findByToken(token);
+    }
+
+    @Override
+    public RefreshToken save(RefreshToken refreshToken) {
+        return refreshTokenRepository.save(refreshToken);
+    }
+
+    @Override
+    public void delete(RefreshToken refreshToken) {
+        refreshTokenRepository.delete(refreshToken);
+    }
+
+    @Override
+    @Transactional
+    public int deleteByTokenHash(String tokenHash) {
+        return refreshTokenRepository.deleteByTokenHash(tokenHash);
+    }
+
+    @Override
+    @Transactional
+    public int deleteByUserId(Long userId) {
+        return refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    @Override
+    public List<RefreshToken> findSessions(Long userId) {
+        return refreshTokenRepository.findSessions(userId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteSession(Long id, Long userId) {
+        return refreshTokenRepository.deleteSession(id, userId);
+    }
+
+    /**
+     * Вставляет сессию и вытесняет старые одним запросом.
+     */
+    @Override
+    public List<String> createSession(RefreshToken refreshToken, int keep) {
+        CreatedSession created = refreshTokenRepository.createSession(refreshToken.getUser().getId(),
+                refreshToken.getTokenHash(), refreshToken.getExpiryDate(), refreshToken.getUserAgent(),
+                refreshToken.getClientIp(), refreshToken.getCreatedAt(), keep);
+        refreshToken.setId(created.getId());
+        return created.getEvictedHashes();
+    }
+
+    @Override
+    public Optional<TokenClaims> rotate(String tokenHash, String successorHash, Instant successorExpiry, Instant now) {
+        return refreshTokenRepository.rotate(tokenHash, successorHash, successorExpiry, now);
+    }
+
+}
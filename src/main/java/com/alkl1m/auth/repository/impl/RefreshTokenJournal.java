@@ -0,0 +1,105 @@
+package com.alkl1m.auth.repository.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Журнал операций write-behind хранилища, разбитый на сегменты segment-N.log.
+ * Операции дописываются в текущий сегмент, при сбросе в бд сегмент закрывается
+ * и удаляется только после фиксации транзакции. Оставшиеся после падения
+ * сегменты проигрываются в бд при следующем старте по порядку номеров.
+ *
+ * @author alkl1m
+ */
+final class RefreshTokenJournal implements Closeable {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final List<Path> recovered;
+    private long sequence;
+    private Path current;
+    private FileChannel channel;
+
+    RefreshTokenJournal(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.recovered = listSegments();
+        this.sequence = recovered.isEmpty() ? 0 : sequenceOf(recovered.get(recovered.size() - 1));
+        open();
+    }
+
+    /**
+     * @return сегменты, оставшиеся от предыдущего запуска, в порядке записи.
+     */
+    List<Path> recoveredSegments() {
+        return recovered;
+    }
+
+    synchronized void append(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Сбрасывает текущий сегмент на диск, закрывает его и начинает новый.
+     *
+     * @return путь закрытого сегмента.
+     */
+    synchronized Path roll() throws IOException {
+        Path sealed = current;
+        channel.force(false);
+        channel.close();
+        open();
+        return sealed;
+    }
+
+    static List<String> read(Path segment) throws IOException {
+        return Files.readAllLines(segment, StandardCharsets.UTF_8);
+    }
+
+    static void delete(Path segment) throws IOException {
+        Files.deleteIfExists(segment);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        sequence++;
+        current = directory.resolve(PREFIX + sequence + SUFFIX);
+        channel = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .toList());
+            segments.sort(Comparator.comparingLong(RefreshTokenJournal::sequenceOf));
+            return List.copyOf(segments);
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+}
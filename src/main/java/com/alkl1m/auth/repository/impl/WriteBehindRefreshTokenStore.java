@@ -0,0 +1,553 @@
+package com.alkl1m.auth.repository.impl;
+
+import com.alkl1m.auth.domain.entity.RefreshToken;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.repository.RefreshTokenStore;
+import com.alkl1m.auth.repository.UserRepository;
+import com.alkl1m.auth.util.TokenHashUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind хранилище refresh токенов. Живые сессии держатся в памяти
+ * (дайджест -> сессия), поиск, выпуск, ротация и удаление не ждут бд.
+ * Изменения копятся в очереди, где вставка и удаление одного токена взаимно
+ * сокращаются, и раз в flushIntervalMs пишутся в бд пачками в отдельной транзакции.
+ * Отставание бд ограничено интервалом сброса и размером очереди maxPending:
+ * при ее заполнении запрос сам сбрасывает очередь.
+ * <p>
+ * Каждое изменение сначала дописывается в журнал на диске. Сегмент журнала
+ * удаляется только после записи его операций в бд, оставшиеся после падения
+ * процесса сегменты проигрываются при старте (операции идемпотентны), после
+ * чего память заполняется живыми токенами из бд. Журнал принудительно сбрасывается
+ * на диск при каждом сбросе в бд, поэтому при потере узла могут пропасть
+ * изменения за последний интервал: пользователю придется войти заново.
+ * <p>
+ * Токены, которых нет в памяти, ищутся в бд. Удаление всех сессий пользователя
+ * тоже идет через очередь: оно вычеркивает еще не закрытые вставки пользователя,
+ * а закрытые сегменты пишутся в бд раньше него, поэтому неудачный сброс не вернет сессии.
+ * Сброс очереди открывает собственную транзакцию, поэтому методы хранилища
+ * вызываются вне транзакции вызывающего.
+ * <p>
+ * Включается настройкой refreshStore.type=write-behind и работает только на одном узле:
+ * память узла не видит сессий, выпущенных и удаленных другими узлами. При старте узел
+ * берет сессионный advisory lock и не запускается, если его уже держит другой узел.
+ *
+ * @author alkl1m
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "application.security.jwt.refreshStore.type", havingValue = "write-behind")
+public class WriteBehindRefreshTokenStore implements RefreshTokenStore {
+
+    private static final Logger logger = LogManager.getLogger(WriteBehindRefreshTokenStore.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO refresh_token (user_id, token_hash, expiry_date, user_agent, client_ip, created_at)
+            SELECT u.id, ?, ?, ?, ?, ? FROM users u WHERE u.id = ?
+            ON CONFLICT (token_hash) DO NOTHING
+            """;
+    private static final String DELETE_SQL = "DELETE FROM refresh_token WHERE token_hash = ?";
+    private static final String DELETE_USER_SQL = "DELETE FROM refresh_token WHERE user_id = ?";
+    private static final String SINGLE_NODE_LOCK_SQL = "SELECT pg_try_advisory_lock(?)";
+    private static final long SINGLE_NODE_LOCK_ID = 0x5246544B53544FL;
+    private static final String LOAD_SQL = """
+            SELECT token_hash, user_id, expiry_date, created_at, user_agent, client_ip
+            FROM refresh_token
+            WHERE expiry_date > ?
+            """;
+
+    private final JpaRefreshTokenStore jpaStore;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.security.jwt.refreshStore.batchSize:500}")
+    private int batchSize;
+
+    @Value("${application.security.jwt.refreshStore.maxPending:10000}")
+    private int maxPending;
+
+    @Value("${application.security.jwt.refreshStore.journalDir:data/refresh-token-journal}")
+    private String journalDir;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Set<String> unflushedDeletes = ConcurrentHashMap.newKeySet();
+
+    private final Object pendingLock = new Object();
+    private final Map<String, Operation> pending = new LinkedHashMap<>();
+    private final Set<String> pendingTombstones = new HashSet<>();
+    private boolean journalDirty;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Deque<Segment> sealed = new ArrayDeque<>();
+    private final AtomicInteger sealedOperations = new AtomicInteger();
+
+    private RefreshTokenJournal journal;
+    private Connection singleNodeLock;
+
+    public WriteBehindRefreshTokenStore(JpaRefreshTokenStore jpaStore, UserRepository userRepository,
+                                        JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jpaStore = jpaStore;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Берет блокировку единственного узла, проигрывает в бд сегменты журнала,
+     * оставшиеся от предыдущего запуска, и загружает в память неистекшие токены.
+     */
+    @PostConstruct
+    public void init() throws IOException, SQLException {
+        acquireSingleNodeLock();
+        journal = new RefreshTokenJournal(Path.of(journalDir));
+        for (Path segment : journal.recoveredSegments()) {
+            List<Operation> operations = new ArrayList<>();
+            for (String line : RefreshTokenJournal.read(segment)) {
+                try {
+                    operations.add(Operation.parse(line));
+                } catch (RuntimeException e) {
+                    logger.warn("Пропущена поврежденная запись журнала в {}", segment.getFileName());
+                }
+            }
+            sealed.add(new Segment(segment, coalesce(operations), Set.of()));
+        }
+        if (!sealed.isEmpty()) {
+            logger.info("Проигрывается {} сегментов журнала refresh токенов", sealed.size());
+        }
+        flushSealed();
+
+        jdbcTemplate.query(LOAD_SQL, (RowCallbackHandler) rs -> index(new Session(
+                rs.getString("token_hash"),
+                rs.getLong("user_id"),
+                rs.getTimestamp("expiry_date").toInstant(),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getString("user_agent"),
+                rs.getString("client_ip"))), Timestamp.from(Instant.now()));
+        logger.info("Загружено {} refresh токенов", sessions.size());
+    }
+
+    /**
+     * Сбрасывает очередь в бд перед остановкой.
+     */
+    @PreDestroy
+    public void shutdown() throws IOException, SQLException {
+        flush();
+        journal.close();
+        singleNodeLock.close();
+    }
+
+    /**
+     * Закрывает текущий сегмент журнала и записывает накопленные операции в бд.
+     * При ошибке сегменты остаются в очереди и повторяются при следующем сбросе.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.refreshStore.flushIntervalMs:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            seal();
+            flushSealed();
+        } catch (RuntimeException | IOException e) {
+            logger.error("Не удалось записать refresh токены в бд: {}", e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Убирает из памяти истекшие токены. Строки в бд удаляет ExpiredRefreshTokenPurger.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.purge.intervalMs:300000}",
+            initialDelayString = "${application.security.jwt.purge.intervalMs:300000}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        for (Session session : sessions.values()) {
+            if (!session.expiryDate().isAfter(now) && sessions.remove(session.tokenHash(), session)) {
+                unindex(session);
+            }
+        }
+    }
+
+    @Override
+    public Optional<RefreshToken> findByToken(String token) {
+        String tokenHash = TokenHashUtils.sha256(token);
+        Session session = sessions.get(tokenHash);
+        if (session != null) {
+            return Optional.of(toRefreshToken(session, token));
+        }
+        if (unflushedDeletes.contains(tokenHash)) {
+            return Optional.empty();
+        }
+        return jpaStore.findByToken(token);
+    }
+
+    @Override
+    public RefreshToken save(RefreshToken refreshToken) {
+        Session session = new Session(refreshToken.getTokenHash(), refreshToken.getUser().getId(),
+                refreshToken.getExpiryDate(), refreshToken.getCreatedAt(),
+                refreshToken.getUserAgent(), refreshToken.getClientIp());
+        index(session);
+        enqueue(Operation.insert(session));
+        return refreshToken;
+    }
+
+    @Override
+    public void delete(RefreshToken refreshToken) {
+        deleteByTokenHash(refreshToken.getTokenHash());
+    }
+
+    @Override
+    public int deleteByTokenHash(String tokenHash) {
+        Session removed = sessions.remove(tokenHash);
+        if (removed != null) {
+            unindex(removed);
+        }
+        enqueue(Operation.delete(tokenHash));
+        return removed != null ? 1 : 0;
+    }
+
+    /**
+     * Убирает сессии пользователя из памяти и ставит в очередь удаление всех его строк в бд.
+     * Дайджесты убранных сессий помечаются удаленными, чтобы до сброса их не нашли в бд.
+     */
+    @Override
+    public int deleteByUserId(Long userId) {
+        Set<String> tokenHashes = sessionsByUser.remove(userId);
+        int removed = 0;
+        if (tokenHashes != null) {
+            for (String tokenHash : tokenHashes) {
+                if (sessions.remove(tokenHash) != null) {
+                    removed++;
+                }
+            }
+        }
+        enqueue(Operation.deleteUser(userId, tokenHashes != null ? Set.copyOf(tokenHashes) : Set.of()));
+        return removed;
+    }
+
+    @Override
+    public List<RefreshToken> findSessions(Long userId) {
+        flush();
+        return jpaStore.findSessions(userId);
+    }
+
+    @Override
+    public int deleteSession(Long id, Long userId) {
+        return findSessions(userId).stream()
+                .filter(session -> session.getId().equals(id))
+                .findFirst()
+                .map(session -> {
+                    deleteByTokenHash(session.getTokenHash());
+                    return 1;
+                })
+                .orElse(0);
+    }
+
+    @Override
+    public List<String> createSession(RefreshToken refreshToken, int keep) {
+        Set<String> tokenHashes = sessionsByUser.get(refreshToken.getUser().getId());
+        List<String> evicted = tokenHashes == null ? List.of() : tokenHashes.stream()
+                .map(sessions::get)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(Session::createdAt).reversed())
+                .skip(keep)
+                .map(Session::tokenHash)
+                .toList();
+        evicted.forEach(this::deleteByTokenHash);
+        save(refreshToken);
+        return evicted;
+    }
+
+    /**
+     * Ротация в памяти: токен изымается из карты атомарно, поэтому из параллельных
+     * обменов одного токена успешен только один. В бд читаются только данные пользователя.
+     */
+    @Override
+    public Optional<TokenClaims> rotate(String tokenHash, String successorHash, Instant successorExpiry, Instant now) {
+        Session consumed = sessions.remove(tokenHash);
+        if (consumed == null) {
+            if (unflushedDeletes.contains(tokenHash)) {
+                return Optional.empty();
+            }
+            return jpaStore.rotate(tokenHash, successorHash, successorExpiry, now);
+        }
+        unindex(consumed);
+        enqueue(Operation.delete(tokenHash));
+        if (!consumed.expiryDate().isAfter(now)) {
+            return Optional.empty();
+        }
+
+        Session successor = new Session(successorHash, consumed.userId(), successorExpiry, now,
+                consumed.userAgent(), consumed.clientIp());
+        index(successor);
+        enqueue(Operation.insert(successor));
+        return userRepository.findTokenClaimsById(consumed.userId());
+    }
+
+    private void enqueue(Operation operation) {
+        boolean full;
+        synchronized (pendingLock) {
+            try {
+                journal.append(operation.toLine());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            journalDirty = true;
+            unflushedDeletes.addAll(operation.tombstones());
+            pendingTombstones.addAll(operation.tombstones());
+            if (!apply(pending, operation)) {
+                return;
+            }
+            full = pending.size() + sealedOperations.get() >= maxPending;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    private void seal() throws IOException {
+        synchronized (pendingLock) {
+            if (!journalDirty) {
+                return;
+            }
+            List<Operation> operations = List.copyOf(pending.values());
+            sealed.add(new Segment(journal.roll(), operations, Set.copyOf(pendingTombstones)));
+            sealedOperations.addAndGet(operations.size());
+            pending.clear();
+            pendingTombstones.clear();
+            journalDirty = false;
+        }
+    }
+
+    private void flushSealed() throws IOException {
+        while (!sealed.isEmpty()) {
+            Segment segment = sealed.peek();
+            write(segment.operations());
+            sealed.poll();
+            sealedOperations.addAndGet(-segment.operations().size());
+            unflushedDeletes.removeAll(segment.tombstones());
+            RefreshTokenJournal.delete(segment.path());
+        }
+    }
+
+    private void write(List<Operation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        List<Operation> deletes = operations.stream().filter(op -> op.type() == Operation.Type.DELETE).toList();
+        List<Operation> userDeletes = operations.stream()
+                .filter(op -> op.type() == Operation.Type.DELETE_USER).toList();
+        List<Operation> inserts = operations.stream().filter(op -> op.type() == Operation.Type.INSERT).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes, batchSize,
+                        (ps, operation) -> ps.setString(1, operation.tokenHash()));
+            }
+            if (!userDeletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_USER_SQL, userDeletes, batchSize,
+                        (ps, operation) -> ps.setLong(1, operation.userId()));
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts, batchSize, (ps, operation) -> {
+                    Session session = operation.session();
+                    ps.setString(1, session.tokenHash());
+                    ps.setTimestamp(2, Timestamp.from(session.expiryDate()));
+                    ps.setString(3, session.userAgent());
+                    ps.setString(4, session.clientIp());
+                    ps.setTimestamp(5, Timestamp.from(session.createdAt()));
+                    ps.setLong(6, session.userId());
+                });
+            }
+        });
+    }
+
+    /**
+     * Сокращает операции сегмента так же, как очередь.
+     */
+    private static List<Operation> coalesce(List<Operation> operations) {
+        Map<String, Operation> coalesced = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            apply(coalesced, operation);
+        }
+        return List.copyOf(coalesced.values());
+    }
+
+    /**
+     * Добавляет операцию в очередь: остается последняя операция по каждому токену,
+     * вставка с последующим удалением не пишется вовсе, а удаление всех сессий
+     * пользователя вычеркивает его предшествующие вставки.
+     *
+     * @return false, если операция сократилась с предыдущей и в очередь не попала.
+     */
+    private static boolean apply(Map<String, Operation> queue, Operation operation) {
+        if (operation.type() == Operation.Type.DELETE_USER) {
+            queue.values().removeIf(queued -> queued.type() == Operation.Type.INSERT
+                    && queued.session().userId().equals(operation.userId()));
+        }
+        Operation previous = queue.remove(operation.key());
+        if (operation.type() == Operation.Type.DELETE && previous != null
+                && previous.type() == Operation.Type.INSERT) {
+            return false;
+        }
+        queue.put(operation.key(), operation);
+        return true;
+    }
+
+    /**
+     * Берет сессионный advisory lock на отдельном соединении, которое держится
+     * до остановки узла. Если блокировку держит другой узел, старт прерывается.
+     */
+    private void acquireSingleNodeLock() throws SQLException {
+        Connection connection = Objects.requireNonNull(jdbcTemplate.getDataSource()).getConnection();
+        try (PreparedStatement statement = connection.prepareStatement(SINGLE_NODE_LOCK_SQL)) {
+            statement.setLong(1, SINGLE_NODE_LOCK_ID);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next() || !rs.getBoolean(1)) {
+                    throw new IllegalStateException("Write-behind хранилище refresh токенов уже запущено "
+                            + "на другом узле, оно поддерживает только один узел");
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        singleNodeLock = connection;
+    }
+
+    private void index(Session session) {
+        sessions.put(session.tokenHash(), session);
+        sessionsByUser.compute(session.userId(), (userId, tokenHashes) -> {
+            Set<String> result = tokenHashes != null ? tokenHashes : ConcurrentHashMap.newKeySet();
+            result.add(session.tokenHash());
+            return result;
+        });
+    }
+
+    private void unindex(Session session) {
+        sessionsByUser.computeIfPresent(session.userId(), (userId, tokenHashes) -> {
+            tokenHashes.remove(session.tokenHash());
+            return tokenHashes.isEmpty() ? null : tokenHashes;
+        });
+    }
+
+    private RefreshToken toRefreshToken(Session session, String token) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUser(userRepository.getReferenceById(session.userId()));
+        refreshToken.setToken(token);
+        refreshToken.setExpiryDate(session.expiryDate());
+        refreshToken.setCreatedAt(session.createdAt());
+        refreshToken.setUserAgent(session.userAgent());
+        refreshToken.setClientIp(session.clientIp());
+        return refreshToken;
+    }
+
+    private record Session(String tokenHash, Long userId, Instant expiryDate, Instant createdAt,
+                           String userAgent, String clientIp) {
+    }
+
+    private record Segment(Path path, List<Operation> operations, Set<String> tombstones) {
+    }
+
+    private record Operation(Type type, String tokenHash, Long userId, Session session, Set<String> tombstones) {
+
+        private static final String NULL = "-";
+
+        enum Type { INSERT, DELETE, DELETE_USER }
+
+        static Operation insert(Session session) {
+            return new Operation(Type.INSERT, session.tokenHash(), session.userId(), session, Set.of());
+        }
+
+        static Operation delete(String tokenHash) {
+            return new Operation(Type.DELETE, tokenHash, null, null, Set.of(tokenHash));
+        }
+
+        static Operation deleteUser(Long userId, Set<String> tokenHashes) {
+            return new Operation(Type.DELETE_USER, null, userId, null, tokenHashes);
+        }
+
+        /**
+         * Ключ операции в очереди: дайджест токена или id пользователя для удаления всех его сессий.
+         */
+        String key() {
+            return type == Type.DELETE_USER ? "U" + userId : tokenHash;
+        }
+
+        String toLine() {
+            if (type == Type.DELETE) {
+                return "D\t" + tokenHash;
+            }
+            if (type == Type.DELETE_USER) {
+                return "U\t" + userId;
+            }
+            return String.join("\t", "I", tokenHash, String.valueOf(session.userId()),
+                    String.valueOf(session.expiryDate().toEpochMilli()),
+                    String.valueOf(session.createdAt().toEpochMilli()),
+                    encode(session.userAgent()), encode(session.clientIp()));
+        }
+
+        static Operation parse(String line) {
+            String[] fields = line.split("\t", -1);
+            if ("D".equals(fields[0])) {
+                return delete(fields[1]);
+            }
+            if ("U".equals(fields[0])) {
+                return deleteUser(Long.parseLong(fields[1]), Set.of());
+            }
+            return insert(new Session(fields[1], Long.parseLong(fields[2]),
+                    Instant.ofEpochMilli(Long.parseLong(fields[3])),
+                    Instant.ofEpochMilli(Long.parseLong(fields[4])),
+                    decode(fields[5]), decode(fields[6])));
+        }
+
+        private static String encode(String value) {
+            return value == null ? NULL : Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static String decode(String value) {
+            return NULL.equals(value) ? null : new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.alkl1m.auth.service;
+
+import com.alkl1m.auth.domain.enums.EThrottleScope;
+
+import java.util.Map;
+
+public interface LoginThrottleService {
+
+    void checkAllowed(String login, String address);
+
+    void release(String login, String address);
+
+    void recordSuccess(String login, String address);
+
+    Map<String, Integer> getFailures(EThrottleScope scope);
+
+    boolean clear(EThrottleScope scope, String key);
+
+    void clearAll();
+
+}
@@ -1,7 +1,10 @@
 package com.alkl1m.auth.service;
 
 import com.alkl1m.auth.domain.entity.RefreshToken;
+import com.alkl1m.auth.domain.projection.RotatedRefreshToken;
+import com.alkl1m.auth.domain.projection.TokenClaims;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenService {
@@ -10,8 +13,20 @@ public interface RefreshTokenService {
 
     RefreshToken createRefreshToken(Long userId);
 
+    RefreshToken createRefreshToken(Long userId, String userAgent, String clientIp);
+
+    List<RefreshToken> findSessions(Long userId);
+
+    void deleteByToken(String token);
+
+    boolean deleteSession(Long userId, Long sessionId);
+
     RefreshToken verifyExpiration(RefreshToken token);
 
+    Optional<TokenClaims> findTokenClaims(RefreshToken token);
+
     void deleteByUserId(Long userId);
 
+    Optional<RotatedRefreshToken> rotate(String token);
+
 }
@@ -0,0 +1,20 @@
+package com.alkl1m.auth.service;
+
+import com.alkl1m.auth.domain.projection.RotatedRefreshToken;
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
+
+import java.util.Optional;
+
+public interface SignedRefreshTokenService {
+
+    boolean isEnabled();
+
+    String issue(UserDetailsImpl userDetails);
+
+    Optional<RotatedRefreshToken> rotate(String token);
+
+    void revoke(String token);
+
+    void revokeAllForUser(Long userId);
+
+}
@@ -0,0 +1,17 @@
+package com.alkl1m.auth.service;
+
+import com.alkl1m.auth.util.SigningKey;
+
+import java.util.List;
+
+public interface SigningKeyService {
+
+    SigningKey getActiveKey();
+
+    SigningKey findByKid(String kid);
+
+    List<SigningKey> getPublishedKeys();
+
+    SigningKey rotate();
+
+}
@@ -0,0 +1,13 @@
+package com.alkl1m.auth.service;
+
+import java.util.Date;
+
+public interface TokenRevocationService {
+
+    void revokeToken(String jti, Date expiration);
+
+    void revokeAllForUser(Long userId);
+
+    boolean isRevoked(String jti, Long userId, long issuedAtMs);
+
+}
@@ -0,0 +1,93 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.config.SchedulingConfig;
+import com.alkl1m.auth.repository.RefreshTokenFamilyRepository;
+import com.alkl1m.auth.repository.RefreshTokenRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Фоновая очистка истекших refresh токенов.
+ * Токены удаляются пачками по индексу expiry_date, каждая пачка в своей короткой
+ * транзакции, с паузой между пачками и ограничением числа пачек за запуск.
+ * Благодаря FOR UPDATE SKIP LOCKED несколько узлов могут чистить таблицу одновременно.
+ * Очистка выполняется в собственном планировщике, паузы не занимают общий поток задач.
+ * Так же очищаются истекшие семейства подписанных refresh токенов.
+ *
+ * @author alkl1m
+ */
+@Component
+public class ExpiredRefreshTokenPurger {
+
+    private static final Logger logger = LogManager.getLogger(ExpiredRefreshTokenPurger.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.security.jwt.purge.batchSize:1000}")
+    private int batchSize;
+
+    @Value("${application.security.jwt.purge.maxBatchesPerRun:100}")
+    private int maxBatchesPerRun;
+
+    @Value("${application.security.jwt.purge.pauseMs:50}")
+    private long pauseMs;
+
+    public ExpiredRefreshTokenPurger(RefreshTokenRepository refreshTokenRepository,
+                                     RefreshTokenFamilyRepository refreshTokenFamilyRepository,
+                                     TransactionTemplate transactionTemplate) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Удаляет истекшие токены, пока очередная пачка не окажется неполной
+     * или не будет достигнут лимит пачек за запуск.
+     *
+     * @return количество удаленных токенов.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.purge.intervalMs:300000}",
+            initialDelayString = "${application.security.jwt.purge.intervalMs:300000}",
+            scheduler = SchedulingConfig.PURGE_SCHEDULER)
+    public int purge() {
+        Instant now = Instant.now();
+        int purged = purge("refresh токенов", () -> refreshTokenRepository.deleteExpiredBatch(now, batchSize));
+        purge("семейств refresh токенов", () -> refreshTokenFamilyRepository.deleteExpiredBatch(now, batchSize));
+        return purged;
+    }
+
+    private int purge(String subject, IntSupplier deleteBatch) {
+        long started = System.nanoTime();
+        int purged = 0;
+        int batches = 0;
+        try {
+            while (batches < maxBatchesPerRun) {
+                Integer deleted = transactionTemplate.execute(status -> deleteBatch.getAsInt());
+                batches++;
+                purged += deleted != null ? deleted : 0;
+                if (deleted == null || deleted < batchSize) {
+                    break;
+                }
+                TimeUnit.MILLISECONDS.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Не удалось очистить истекшие {}: {}", subject, e.getMessage());
+        }
+        logger.info("Удалено {} истекших {} за {} мс ({} пачек)",
+                purged, subject, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), batches);
+        return purged;
+    }
+
+}
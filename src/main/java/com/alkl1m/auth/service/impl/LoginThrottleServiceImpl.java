@@ -0,0 +1,163 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.enums.ESecurityEvent;
+import com.alkl1m.auth.domain.enums.EThrottleScope;
+import com.alkl1m.auth.domain.exception.LoginThrottledException;
+import com.alkl1m.auth.service.LoginThrottleService;
+import com.alkl1m.auth.util.SecurityEventLogger;
+import com.alkl1m.auth.util.SlidingWindowCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Реализация LoginThrottleService на счетчиках неудачных попыток входа
+ * в скользящем окне по логину и по адресу клиента, хранящихся в памяти узла.
+ * Каждая попытка заранее занимает слот в обоих счетчиках до проверки пароля,
+ * поэтому параллельные запросы не получают попыток сверх лимита, а перебор
+ * паролей после превышения лимита не расходует BCrypt.
+ * Успешный вход сбрасывает счетчик логина и возвращает слот адреса;
+ * попытка, прерванная не из-за неверного пароля, возвращает оба слота.
+ *
+ * @author alkl1m
+ */
+@Service
+public class LoginThrottleServiceImpl implements LoginThrottleService {
+
+    private final boolean enabled;
+    private final Map<EThrottleScope, SlidingWindowCounter> counters = new EnumMap<>(EThrottleScope.class);
+    private final Map<EThrottleScope, Counter> throttled = new EnumMap<>(EThrottleScope.class);
+    private final SecurityEventLogger securityEventLogger;
+
+    public LoginThrottleServiceImpl(@Value("${application.security.loginThrottle.enabled:true}") boolean enabled,
+                                    @Value("${application.security.loginThrottle.windowMs:60000}") long windowMs,
+                                    @Value("${application.security.loginThrottle.maxFailuresPerLogin:10}") int maxFailuresPerLogin,
+                                    @Value("${application.security.loginThrottle.maxFailuresPerAddress:100}") int maxFailuresPerAddress,
+                                    @Value("${application.security.loginThrottle.stripes:64}") int stripes,
+                                    @Value("${application.security.loginThrottle.maxKeysPerStripe:1024}") int maxKeysPerStripe,
+                                    SecurityEventLogger securityEventLogger,
+                                    MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.securityEventLogger = securityEventLogger;
+        Map<EThrottleScope, Integer> limits = Map.of(
+                EThrottleScope.LOGIN, maxFailuresPerLogin,
+                EThrottleScope.ADDRESS, maxFailuresPerAddress);
+        for (EThrottleScope scope : EThrottleScope.values()) {
+            counters.put(scope, new SlidingWindowCounter(windowMs, limits.get(scope), stripes, maxKeysPerStripe));
+            throttled.put(scope, Counter.builder("auth.login.throttled")
+                    .tag("scope", scope.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Занимает слот попытки входа по логину и адресу. Пока попытка не завершена
+     * успехом или release, она считается неудачной.
+     *
+     * @param login   логин из запроса.
+     * @param address адрес клиента.
+     * @throws LoginThrottledException если лимит по логину или адресу исчерпан.
+     */
+    @Override
+    public void checkAllowed(String login, String address) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        acquire(EThrottleScope.LOGIN, login, now);
+        try {
+            acquire(EThrottleScope.ADDRESS, address, now);
+        } catch (LoginThrottledException e) {
+            release(EThrottleScope.LOGIN, login, now);
+            throw e;
+        }
+    }
+
+    /**
+     * Возвращает слоты попытки, которая завершилась не из-за неверного пароля.
+     *
+     * @param login   логин из запроса.
+     * @param address адрес клиента.
+     */
+    @Override
+    public void release(String login, String address) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        release(EThrottleScope.LOGIN, login, now);
+        release(EThrottleScope.ADDRESS, address, now);
+    }
+
+    /**
+     * Сбрасывает счетчик логина и возвращает слот адреса после успешного входа.
+     *
+     * @param login   логин пользователя.
+     * @param address адрес клиента.
+     */
+    @Override
+    public void recordSuccess(String login, String address) {
+        if (!enabled) {
+            return;
+        }
+        if (login != null) {
+            counters.get(EThrottleScope.LOGIN).reset(login);
+        }
+        release(EThrottleScope.ADDRESS, address, System.currentTimeMillis());
+    }
+
+    /**
+     * Возвращает текущие оценки числа неудачных попыток по ключам.
+     *
+     * @param scope вид ключа.
+     * @return число неудачных попыток в окне по ключам.
+     */
+    @Override
+    public Map<String, Integer> getFailures(EThrottleScope scope) {
+        return counters.get(scope).snapshot(System.currentTimeMillis());
+    }
+
+    /**
+     * Сбрасывает счетчик одного ключа.
+     *
+     * @param scope вид ключа.
+     * @param key   логин или адрес.
+     * @return true, если ключ был учтен.
+     */
+    @Override
+    public boolean clear(EThrottleScope scope, String key) {
+        return counters.get(scope).reset(key);
+    }
+
+    /**
+     * Сбрасывает все счетчики.
+     */
+    @Override
+    public void clearAll() {
+        counters.values().forEach(SlidingWindowCounter::clear);
+    }
+
+    private void acquire(EThrottleScope scope, String key, long now) {
+        if (key == null) {
+            return;
+        }
+        SlidingWindowCounter counter = counters.get(scope);
+        if (!counter.tryAcquire(key, now)) {
+            throttled.get(scope).increment();
+            securityEventLogger.record(ESecurityEvent.LOGIN_THROTTLED, scope + " " + key);
+            long retryAfterSeconds = Math.max(1, (counter.millisUntilNextWindow(now) + 999) / 1000);
+            throw new LoginThrottledException("Too many failed login attempts", retryAfterSeconds);
+        }
+    }
+
+    private void release(EThrottleScope scope, String key, long now) {
+        if (key != null) {
+            counters.get(scope).release(key, now);
+        }
+    }
+
+}
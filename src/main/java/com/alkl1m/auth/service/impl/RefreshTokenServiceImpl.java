@@ -1,24 +1,29 @@
 package com.alkl1m.auth.service.impl;
 
 import com.alkl1m.auth.domain.entity.RefreshToken;
-import com.alkl1m.auth.domain.entity.User;
 import com.alkl1m.auth.domain.exception.TokenRefreshException;
-import com.alkl1m.auth.repository.RefreshTokenRepository;
+import com.alkl1m.auth.domain.projection.RotatedRefreshToken;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.repository.RefreshTokenStore;
 import com.alkl1m.auth.repository.UserRepository;
 import com.alkl1m.auth.service.RefreshTokenService;
-import jakarta.persistence.EntityNotFoundException;
+import com.alkl1m.auth.util.TokenHashUtils;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Реализация RefreshTokenService для управления refresh токенами.
+ * Токены читаются и изменяются через RefreshTokenStore, реализация которого
+ * выбирается настройкой refreshStore.type. Транзакции открывает само хранилище:
+ * write-behind хранилище пишет в бд в собственных транзакциях и не должно
+ * вызываться внутри чужой.
  *
  * @author alkl1m
  */
@@ -30,11 +35,19 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     @Value("${application.security.jwt.refreshExpirationMs}")
     private Long refreshTokenDurationMs;
 
-    private final RefreshTokenRepository refreshTokenRepository;
+    @Getter
+    @Value("${application.security.jwt.refreshRotation:true}")
+    private boolean refreshRotation;
+
+    @Setter
+    @Value("${application.security.jwt.maxSessions:5}")
+    private int maxSessions;
+
+    private final RefreshTokenStore refreshTokenStore;
     private final UserRepository userRepository;
 
-    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
-        this.refreshTokenRepository = refreshTokenRepository;
+    public RefreshTokenServiceImpl(RefreshTokenStore refreshTokenStore, UserRepository userRepository) {
+        this.refreshTokenStore = refreshTokenStore;
         this.userRepository = userRepository;
     }
 
@@ -46,7 +59,7 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
      */
     @Override
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        return refreshTokenStore.findByToken(token);
     }
 
     /**
@@ -57,15 +70,66 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
      */
     @Override
     public RefreshToken createRefreshToken(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException(String.format("User not found with ID: %s", userId)));
+        return createRefreshToken(userId, null, null);
+    }
 
+    /**
+     * Создает новую сессию (refresh токен) для указанного пользователя.
+     * Вставка и вытеснение самых старых сессий сверх лимита выполняются одним запросом.
+     * Пользователь не загружается: для внешнего ключа достаточно ссылки по id.
+     *
+     * @param userId    идентификатор пользователя, для которого создается токен.
+     * @param userAgent User-Agent устройства.
+     * @param clientIp  IP адрес клиента.
+     * @return созданный объект RefreshToken.
+     */
+    @Override
+    public RefreshToken createRefreshToken(Long userId, String userAgent, String clientIp) {
+        Instant now = Instant.now();
         RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setUser(user);
-        refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
+        refreshToken.setUser(userRepository.getReferenceById(userId));
+        refreshToken.setCreatedAt(now);
+        refreshToken.setExpiryDate(now.plusMillis(refreshTokenDurationMs));
+        refreshToken.setUserAgent(userAgent);
+        refreshToken.setClientIp(clientIp);
         refreshToken.setToken(UUID.randomUUID().toString());
 
-        return refreshTokenRepository.save(refreshToken);
+        int keep = maxSessions > 0 ? maxSessions - 1 : Integer.MAX_VALUE;
+        refreshTokenStore.createSession(refreshToken, keep);
+        return refreshToken;
+    }
+
+    /**
+     * Возвращает сессии пользователя, начиная с самой новой.
+     *
+     * @param userId идентификатор пользователя.
+     * @return список сессий.
+     */
+    @Override
+    public List<RefreshToken> findSessions(Long userId) {
+        return refreshTokenStore.findSessions(userId);
+    }
+
+    /**
+     * Завершает сессию по значению ее refresh токена одним запросом.
+     *
+     * @param token значение refresh токена.
+     */
+    @Override
+    public void deleteByToken(String token) {
+        refreshTokenStore.deleteByTokenHash(TokenHashUtils.sha256(token));
+    }
+
+    /**
+     * Завершает сессию пользователя по ее id.
+     *
+     * @param userId    идентификатор пользователя.
+     * @param sessionId идентификатор сессии.
+     * @return true, если сессия найдена и удалена.
+     */
+    @Override
+    public boolean deleteSession(Long userId, Long sessionId) {
+        return refreshTokenStore.deleteSession(sessionId, userId) > 0;
     }
 
     /**
@@ -77,22 +141,50 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     @Override
     public RefreshToken verifyExpiration(RefreshToken token) {
         if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
-            refreshTokenRepository.delete(token);
+            refreshTokenStore.delete(token);
             throw new TokenRefreshException(token.getToken(), "Refresh token was expired");
         }
         return token;
     }
 
     /**
-     * Удаляет все refresh токены, связанные с указанным пользователем.
+     * Читает id, логин и роли владельца токена одним запросом по проекции,
+     * не загружая пользователя и его роли как сущности.
+     *
+     * @param token refresh токен.
+     * @return данные для выпуска access токена или пустой Optional, если пользователь удален.
+     */
+    @Override
+    public Optional<TokenClaims> findTokenClaims(RefreshToken token) {
+        return userRepository.findTokenClaimsById(token.getUser().getId());
+    }
+
+    /**
+     * Удаляет все refresh токены, связанные с указанным пользователем, одним запросом по user_id.
      *
      * @param userId идентификатор пользователя, чьи токены будут удалены.
      */
     @Override
-    @Transactional
     public void deleteByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + userId));
-        refreshTokenRepository.deleteByUser(user);
+        refreshTokenStore.deleteByUserId(userId);
+    }
+
+    /**
+     * Атомарно обменивает refresh токен на новый (в JPA хранилище одним запросом к бд):
+     * старый токен удаляется, при неистекшем сроке вставляется преемник
+     * и возвращаются данные пользователя для выпуска access токена.
+     * Повторное использование того же токена не найдет строку и вернет пустой результат.
+     *
+     * @param token текущий refresh токен.
+     * @return новый refresh токен с данными пользователя или пустой Optional,
+     * если токен не найден, уже использован или истек.
+     */
+    @Override
+    public Optional<RotatedRefreshToken> rotate(String token) {
+        String successor = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        return refreshTokenStore.rotate(TokenHashUtils.sha256(token), TokenHashUtils.sha256(successor),
+                        now.plusMillis(refreshTokenDurationMs), now)
+                .map(claims -> new RotatedRefreshToken(successor, claims));
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import com.alkl1m.auth.domain.enums.ERole;
 import com.alkl1m.auth.repository.RoleRepository;
 import com.alkl1m.auth.repository.UserRepository;
 import com.alkl1m.auth.service.RoleService;
+import com.alkl1m.auth.service.TokenRevocationService;
 import com.alkl1m.auth.web.payload.AddRolesPayload;
 import com.alkl1m.auth.web.payload.UserRolesResponse;
 import jakarta.persistence.EntityNotFoundException;
@@ -27,9 +28,11 @@ import java.util.Set;
 public class RoleServiceImpl implements RoleService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final TokenRevocationService tokenRevocationService;
 
     /**
      * Сохранение ролей для указанного пользователя.
+     * Выпущенные ранее access токены пользователя со старыми ролями отзываются.
      *
      * @param payload объект, содержащий информацию о пользователе и ролях.
      */
@@ -55,6 +58,7 @@ public class RoleServiceImpl implements RoleService {
         user.setRoles(roles);
 
         userRepository.save(user);
+        tokenRevocationService.revokeAllForUser(user.getId());
     }
 
     /**
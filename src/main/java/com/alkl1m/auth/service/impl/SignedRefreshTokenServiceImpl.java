@@ -0,0 +1,241 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.entity.RefreshTokenFamily;
+import com.alkl1m.auth.domain.enums.ESecurityEvent;
+import com.alkl1m.auth.domain.projection.RotatedRefreshToken;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.repository.RefreshTokenFamilyRepository;
+import com.alkl1m.auth.domain.exception.UnknownSigningKeyException;
+import com.alkl1m.auth.service.SignedRefreshTokenService;
+import com.alkl1m.auth.service.SigningKeyService;
+import com.alkl1m.auth.util.SecurityEventLogger;
+import com.alkl1m.auth.util.SigningKey;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Подписанные refresh токены (refreshMode=signed). Токен - JWT с логином, id пользователя,
+ * id семейства (fam) и поколением (gen), поэтому подделанный или истекший токен
+ * отклоняется без обращения к бд. Для принятого токена одним запросом проверяется
+ * и увеличивается счетчик поколения семейства. Если перевести семейство не удалось,
+ * оно перечитывается: токен прошлого поколения живого семейства означает повторное
+ * использование, и семейство удаляется вместе со всеми его токенами. Истекшее или
+ * закрытое семейство, а также токен предыдущего поколения в течение короткого окна
+ * после ротации (две вкладки обновляют токен одновременно) просто отклоняются.
+ * <p>
+ * Токены подписываются HMAC ключом, выведенным из активного ключа связки, и несут его kid,
+ * поэтому ротация связки меняет и ключ refresh токенов, а refresh токен не проходит
+ * проверку как access токен. Токены без kid, выпущенные до появления kid, проверяются
+ * ключом, выведенным из секрета HS256. Выведенные ключи кэшируются по kid.
+ *
+ * @author alkl1m
+ */
+@Service
+public class SignedRefreshTokenServiceImpl implements SignedRefreshTokenService {
+
+    private static final String FAMILY_CLAIM = "fam";
+    private static final String GENERATION_CLAIM = "gen";
+    private static final byte[] KEY_CONTEXT = "refresh-token".getBytes(StandardCharsets.UTF_8);
+
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final SecurityEventLogger securityEventLogger;
+    private final SigningKeyService signingKeyService;
+
+    @Value("${application.security.jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${application.security.jwt.refreshMode:opaque}")
+    private String refreshMode;
+
+    @Value("${application.security.jwt.refreshExpirationMs}")
+    private long refreshTokenDurationMs;
+
+    @Value("${application.security.jwt.refreshReuseGraceMs:5000}")
+    private long reuseGraceMs;
+
+    private final Map<String, SecretKey> keysByKid = new ConcurrentHashMap<>();
+    private SecretKey legacyKey;
+    private JwtParser parser;
+
+    public SignedRefreshTokenServiceImpl(RefreshTokenFamilyRepository refreshTokenFamilyRepository,
+                                         SecurityEventLogger securityEventLogger,
+                                         SigningKeyService signingKeyService) {
+        this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
+        this.securityEventLogger = securityEventLogger;
+        this.signingKeyService = signingKeyService;
+    }
+
+    @PostConstruct
+    public void init() {
+        legacyKey = derive(Decoders.BASE64.decode(jwtSecret));
+        parser = Jwts.parser().keyLocator(this::locateKey).build();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return "signed".equalsIgnoreCase(refreshMode);
+    }
+
+    /**
+     * Открывает новое семейство и выпускает его первый токен.
+     *
+     * @param userDetails данные пользователя.
+     * @return подписанный refresh токен.
+     */
+    @Override
+    public String issue(UserDetailsImpl userDetails) {
+        String familyId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusMillis(refreshTokenDurationMs);
+        refreshTokenFamilyRepository.insert(familyId, userDetails.getId(), expiresAt, now);
+        return sign(userDetails.getId(), userDetails.getUsername(), familyId, 0, now, expiresAt);
+    }
+
+    /**
+     * Проверяет подпись и срок токена локально, затем переводит его семейство
+     * на следующее поколение и выпускает токен этого поколения.
+     *
+     * @param token текущий refresh токен.
+     * @return новый refresh токен с данными пользователя или пустой Optional,
+     * если токен недействителен, семейство закрыто или токен уже использован.
+     */
+    @Override
+    public Optional<RotatedRefreshToken> rotate(String token) {
+        Claims claims = parse(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+        String familyId = claims.get(FAMILY_CLAIM, String.class);
+        int generation = claims.get(GENERATION_CLAIM, Integer.class);
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusMillis(refreshTokenDurationMs);
+
+        Optional<TokenClaims> advanced = refreshTokenFamilyRepository.advance(familyId, generation, expiresAt, now);
+        if (advanced.isEmpty()) {
+            if (isReused(familyId, generation, now)) {
+                refreshTokenFamilyRepository.deleteByFamilyId(familyId);
+                securityEventLogger.record(ESecurityEvent.REFRESH_TOKEN_REUSED, familyId);
+            }
+            return Optional.empty();
+        }
+        TokenClaims tokenClaims = advanced.get();
+        return Optional.of(new RotatedRefreshToken(
+                sign(tokenClaims.getId(), tokenClaims.getLogin(), familyId, generation + 1, now, expiresAt),
+                tokenClaims));
+    }
+
+    /**
+     * Закрывает семейство токена, если токен подписан этим сервисом.
+     *
+     * @param token refresh токен.
+     */
+    @Override
+    public void revoke(String token) {
+        Claims claims = parse(token);
+        if (claims != null) {
+            refreshTokenFamilyRepository.deleteByFamilyId(claims.get(FAMILY_CLAIM, String.class));
+        }
+    }
+
+    /**
+     * Закрывает все семейства пользователя.
+     *
+     * @param userId id пользователя.
+     */
+    @Override
+    public void revokeAllForUser(Long userId) {
+        refreshTokenFamilyRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Повторным использованием считается только токен другого поколения живого семейства.
+     * Токен предыдущего поколения допускается в течение reuseGraceMs после ротации;
+     * момент ротации восстанавливается из срока семейства, который при ротации
+     * выставляется на refreshTokenDurationMs вперед.
+     */
+    private boolean isReused(String familyId, int generation, Instant now) {
+        Optional<RefreshTokenFamily> family = refreshTokenFamilyRepository.findById(familyId);
+        if (family.isEmpty() || !family.get().getExpiresAt().isAfter(now)
+                || family.get().getGeneration() == generation) {
+            return false;
+        }
+        Instant rotatedAt = family.get().getExpiresAt().minusMillis(refreshTokenDurationMs);
+        return family.get().getGeneration() != generation + 1 || rotatedAt.plusMillis(reuseGraceMs).isBefore(now);
+    }
+
+    private String sign(Long userId, String login, String familyId, int generation, Instant now, Instant expiresAt) {
+        SigningKey signingKey = signingKeyService.getActiveKey();
+        return Jwts.builder()
+                .header().keyId(signingKey.kid()).and()
+                .subject(login)
+                .claim("id", userId)
+                .claim(FAMILY_CLAIM, familyId)
+                .claim(GENERATION_CLAIM, generation)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(expiresAt))
+                .signWith(refreshKey(signingKey), Jwts.SIG.HS256)
+                .compact();
+    }
+
+    /**
+     * Ключ проверки по kid из заголовка: выведенный из ключа связки с этим kid,
+     * для токенов без kid - из секрета HS256.
+     */
+    private Key locateKey(Header header) {
+        String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        if (kid == null) {
+            return legacyKey;
+        }
+        SigningKey signingKey = signingKeyService.findByKid(kid);
+        if (signingKey == null || signingKey.signingKey() == null) {
+            throw new UnknownSigningKeyException(kid);
+        }
+        return refreshKey(signingKey);
+    }
+
+    private SecretKey refreshKey(SigningKey signingKey) {
+        return keysByKid.computeIfAbsent(signingKey.kid(), kid -> derive(signingKey.signingKey().getEncoded()));
+    }
+
+    private static SecretKey derive(byte[] material) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(material, "HmacSHA256"));
+            return Keys.hmacShaKeyFor(mac.doFinal(KEY_CONTEXT));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive refresh token key", e);
+        }
+    }
+
+    private Claims parse(String token) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return claims.get(FAMILY_CLAIM) != null && claims.get(GENERATION_CLAIM) != null ? claims : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
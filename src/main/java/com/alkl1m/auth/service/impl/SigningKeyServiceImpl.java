@@ -0,0 +1,357 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.entity.JwtSigningKey;
+import com.alkl1m.auth.repository.JwtSigningKeyRepository;
+import com.alkl1m.auth.service.SigningKeyService;
+import com.alkl1m.auth.util.SigningKey;
+import com.alkl1m.auth.util.SigningKeyCipher;
+import com.alkl1m.auth.util.SigningKeys;
+import com.alkl1m.auth.util.VerifiedTokenCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Реализация SigningKeyService со связкой ключей в таблице signing_key.
+ * Ротация двухфазная: новый ключ сразу публикуется в JWKS и принимается при проверке,
+ * но начинает подписывать только через activationDelay (время жизни JWKS в кэше
+ * плюс интервал обновления связки), чтобы все узлы и внешние проверяющие успели его узнать.
+ * Входящие токены проверяются по kid среди ожидающего, активного и выведенных
+ * из оборота ключей, пока подписанные ими токены (в том числе подписанные refresh токены,
+ * ключ которых выводится из ключа связки) еще могут быть живы.
+ * Связка загружается при старте и периодически перечитывается в фоне,
+ * запросы читают только готовый снимок.
+ * Секрет HS256 из конфигурации остается ключом проверки токенов, выпущенных без kid.
+ * Приватная часть ключей хранится в бд зашифрованной ключом из конфигурации.
+ * При старте ключ из конфигурации сверяется с сохраненным под advisory lock,
+ * поэтому одновременно стартующие узлы не добавляют по ключу каждый.
+ *
+ * @author alkl1m
+ */
+@Service
+public class SigningKeyServiceImpl implements SigningKeyService {
+
+    private static final Logger logger = LogManager.getLogger(SigningKeyServiceImpl.class);
+
+    private static final long SIGNING_KEY_LOCK_ID = 0x5349474E4B4559L;
+
+    private final JwtSigningKeyRepository signingKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "signing-key-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${application.security.jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${application.security.jwt.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${application.security.jwt.keyId:}")
+    private String keyId;
+
+    @Value("${application.security.jwt.privateKey:}")
+    private String privateKey;
+
+    @Value("${application.security.jwt.publicKey:}")
+    private String publicKey;
+
+    @Value("${application.security.jwt.expirationMs}")
+    private long jwtExpirationMs;
+
+    @Value("${application.security.jwt.refreshExpirationMs}")
+    private long refreshExpirationMs;
+
+    @Value("${application.security.jwt.refreshMode:opaque}")
+    private String refreshMode;
+
+    @Value("${application.security.jwt.keys.unknownKidRefreshIntervalMs:10000}")
+    private long unknownKidRefreshIntervalMs;
+
+    @Value("${application.security.jwt.keys.refreshIntervalMs:60000}")
+    private long refreshIntervalMs;
+
+    @Value("${application.security.jwt.keys.jwksMaxAgeSeconds:300}")
+    private long jwksMaxAgeSeconds;
+
+    @Value("${application.security.jwt.keys.encryptionKey:}")
+    private String encryptionKey;
+
+    private SigningKeyCipher cipher;
+
+    private SigningKey legacyKey;
+    private volatile KeyRing keyRing;
+    private final AtomicLong lastUnknownKidRefresh = new AtomicLong();
+
+    public SigningKeyServiceImpl(JwtSigningKeyRepository signingKeyRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 VerifiedTokenCache verifiedTokenCache) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    /**
+     * Загружает связку ключей при старте и сверяет ее с конфигурацией.
+     */
+    @PostConstruct
+    public void init() {
+        legacyKey = SigningKeys.hmac(null, jwtSecret);
+        cipher = SigningKeyCipher.create(encryptionKey, jwtSecret);
+        transactionTemplate.execute(status -> {
+            signingKeyRepository.lock(SIGNING_KEY_LOCK_ID);
+            encryptStoredKeys();
+            refresh();
+            reconcile();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Перечитывает связку ключей из бд и атомарно подменяет снимок.
+     * Если из связки пропал ключ, сбрасывает кэш проверенных токенов.
+     * При ошибке продолжает работать с предыдущим снимком.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.keys.refreshIntervalMs:60000}",
+            initialDelayString = "${application.security.jwt.keys.refreshIntervalMs:60000}")
+    public void refresh() {
+        try {
+            List<JwtSigningKey> entities = signingKeyRepository.findUsable(Instant.now().minusMillis(retentionMs()));
+
+            Map<String, SigningKey> keysByKid = new HashMap<>();
+            keysByKid.put(legacyKey.kid(), legacyKey);
+            List<SigningPeriod> signingPeriods = new ArrayList<>();
+            for (JwtSigningKey entity : entities) {
+                SigningKey signingKey = SigningKeys.fromEncoded(entity.getKid(), entity.getAlgorithm(),
+                        cipher.decrypt(entity.getPrivateKey()), entity.getPublicKey());
+                keysByKid.put(signingKey.kid(), signingKey);
+                signingPeriods.add(new SigningPeriod(signingKey, entity.getActivatesAt(), entity.getRetiredAt()));
+            }
+            signingPeriods.sort(Comparator.comparing(SigningPeriod::activatesAt).reversed());
+
+            List<SigningKey> publishedKeys = keysByKid.values().stream()
+                    .filter(SigningKey::isAsymmetric)
+                    .toList();
+            KeyRing previous = keyRing;
+            keyRing = new KeyRing(List.copyOf(signingPeriods), Map.copyOf(keysByKid), publishedKeys);
+            if (previous != null && !keysByKid.keySet().containsAll(previous.keysByKid().keySet())) {
+                verifiedTokenCache.clear();
+                logger.info("Ключ подписи выведен из связки, кэш проверенных токенов сброшен");
+            }
+        } catch (RuntimeException e) {
+            if (keyRing == null) {
+                throw e;
+            }
+            logger.error("Не удалось обновить связку ключей подписи: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Выпускает новый ключ. Сразу он только публикуется и принимается при проверке,
+     * подписывать начинает через activationDelay; в этот же момент текущие ключи
+     * выводятся из оборота. Выведенные ключи продолжают использоваться для проверки,
+     * пока живут подписанные ими токены.
+     * В режиме HS256 новый ключ случайный и известен только этому сервису: сервисы,
+     * проверяющие токены общим секретом, после ротации перестанут их принимать.
+     *
+     * @return новый ключ, ожидающий активации.
+     */
+    @Override
+    @Transactional
+    public SigningKey rotate() {
+        SigningKey signingKey = SigningKeys.generate(algorithm);
+        Instant activatesAt = schedule(signingKey, Instant.now().plusMillis(activationDelayMs()));
+        logger.info("Выпущен новый ключ подписи {}, подписывает с {}", signingKey.kid(), activatesAt);
+        return signingKey;
+    }
+
+    /**
+     * Возвращает ключ, которым подписываются новые токены: самый свежий ключ,
+     * время активации которого наступило, а время вывода из оборота - еще нет.
+     *
+     * @return активный ключ подписи или null, если такого ключа нет.
+     */
+    @Override
+    public SigningKey getActiveKey() {
+        Instant now = Instant.now();
+        for (SigningPeriod period : keyRing.signingPeriods()) {
+            if (period.isActive(now)) {
+                return period.signingKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Находит ключ проверки по kid из заголовка токена. Если kid неизвестен
+     * (например, ключ только что выпущен на другом узле), не чаще заданного
+     * интервала запускает фоновое обновление связки.
+     *
+     * @param kid идентификатор ключа, null для токенов без kid.
+     * @return ключ или null, если ключ неизвестен.
+     */
+    @Override
+    public SigningKey findByKid(String kid) {
+        if (kid == null) {
+            return legacyKey;
+        }
+        SigningKey signingKey = keyRing.keysByKid().get(kid);
+        if (signingKey == null) {
+            refreshInBackground();
+        }
+        return signingKey;
+    }
+
+    /**
+     * Возвращает ключи, публичную часть которых можно опубликовать в JWKS.
+     *
+     * @return асимметричные ключи.
+     */
+    @Override
+    public List<SigningKey> getPublishedKeys() {
+        return keyRing.publishedKeys();
+    }
+
+    private void refreshInBackground() {
+        long now = System.currentTimeMillis();
+        long last = lastUnknownKidRefresh.get();
+        if (now - last >= unknownKidRefreshIntervalMs && lastUnknownKidRefresh.compareAndSet(last, now)) {
+            refreshExecutor.execute(this::refresh);
+        }
+    }
+
+    /**
+     * Сверяет связку с конфигурацией. Ключ из конфигурации (в режиме HS256 - секрет),
+     * которого еще нет в бд, добавляется; если в конфигурации только алгоритм и он не совпадает с алгоритмом
+     * текущего ключа, генерируется новый ключ. Пока есть активный ключ, новый ключ
+     * начинает подписывать через activationDelay, иначе сразу.
+     */
+    private void reconcile() {
+        SigningKey configuredKey = configuredKey();
+        SigningKey currentKey = currentKey();
+        Instant now = Instant.now();
+        Instant activatesAt = getActiveKey() == null ? now : now.plusMillis(activationDelayMs());
+
+        if (configuredKey != null && !signingKeyRepository.existsByKid(configuredKey.kid())) {
+            schedule(configuredKey, activatesAt);
+            logger.info("Добавлен ключ подписи {} из конфигурации, подписывает с {}", configuredKey.kid(), activatesAt);
+        } else if (currentKey == null) {
+            SigningKey signingKey = SigningKeys.generate(algorithm);
+            schedule(signingKey, activatesAt);
+            logger.info("Ключей подписи нет, выпущен ключ {} ({})", signingKey.kid(), algorithm);
+        } else if (configuredKey == null && !algorithm.equals(currentKey.algorithm().getId())) {
+            SigningKey signingKey = SigningKeys.generate(algorithm);
+            schedule(signingKey, activatesAt);
+            logger.info("Алгоритм подписи изменен с {} на {}, выпущен ключ {}, подписывает с {}",
+                    currentKey.algorithm().getId(), algorithm, signingKey.kid(), activatesAt);
+        } else {
+            logger.info("Используется сохраненный ключ подписи {}", currentKey.kid());
+        }
+    }
+
+    /**
+     * Ключ, который подписывает или будет подписывать после уже запланированной ротации.
+     */
+    private SigningKey currentKey() {
+        for (SigningPeriod period : keyRing.signingPeriods()) {
+            if (period.retiredAt() == null) {
+                return period.signingKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ключ из конфигурации. В режиме HS256 это общий секрет, которым токены проверяют
+     * и другие сервисы, поэтому связка засевается им, а не случайным ключом.
+     */
+    private SigningKey configuredKey() {
+        if (SigningKeys.HS256.equals(algorithm)) {
+            return SigningKeys.hmac(keyId.isBlank() ? null : keyId, jwtSecret);
+        }
+        if (privateKey.isBlank() || publicKey.isBlank()) {
+            return null;
+        }
+        return SigningKeys.fromEncoded(keyId, algorithm, privateKey, publicKey);
+    }
+
+    private Instant schedule(SigningKey signingKey, Instant activatesAt) {
+        signingKeyRepository.save(toEntity(signingKey, Instant.now(), activatesAt));
+        signingKeyRepository.retireAllExcept(signingKey.kid(), activatesAt);
+        refresh();
+        return activatesAt;
+    }
+
+    /**
+     * Шифрует приватную часть ключей, записанных до включения шифрования.
+     */
+    private void encryptStoredKeys() {
+        List<JwtSigningKey> plaintextKeys = signingKeyRepository.findAll().stream()
+                .filter(entity -> !cipher.isEncrypted(entity.getPrivateKey()))
+                .toList();
+        if (!plaintextKeys.isEmpty()) {
+            plaintextKeys.forEach(entity -> entity.setPrivateKey(cipher.encrypt(entity.getPrivateKey())));
+            signingKeyRepository.saveAll(plaintextKeys);
+            logger.info("Зашифрованы приватные части {} ключей подписи", plaintextKeys.size());
+        }
+    }
+
+    /**
+     * Сколько выведенный ключ остается в связке: пока живут подписанные им access токены,
+     * а при подписанных refresh токенах - и refresh токены, ключ которых выведен из него.
+     */
+    private long retentionMs() {
+        return "signed".equalsIgnoreCase(refreshMode) ? Math.max(jwtExpirationMs, refreshExpirationMs) : jwtExpirationMs;
+    }
+
+    private long activationDelayMs() {
+        return jwksMaxAgeSeconds * 1000 + refreshIntervalMs;
+    }
+
+    private JwtSigningKey toEntity(SigningKey signingKey, Instant createdAt, Instant activatesAt) {
+        return JwtSigningKey.builder()
+                .kid(signingKey.kid())
+                .algorithm(signingKey.algorithm().getId())
+                .privateKey(cipher.encrypt(SigningKeys.encode(signingKey.signingKey())))
+                .publicKey(signingKey.isAsymmetric() ? SigningKeys.encode(signingKey.verificationKey()) : null)
+                .createdAt(createdAt)
+                .activatesAt(activatesAt)
+                .build();
+    }
+
+    private record KeyRing(List<SigningPeriod> signingPeriods, Map<String, SigningKey> keysByKid,
+                           List<SigningKey> publishedKeys) {
+    }
+
+    private record SigningPeriod(SigningKey signingKey, Instant activatesAt, Instant retiredAt) {
+
+        boolean isActive(Instant now) {
+            return !activatesAt.isAfter(now) && (retiredAt == null || retiredAt.isAfter(now));
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.entity.RevokedToken;
+import com.alkl1m.auth.repository.RevokedTokenRepository;
+import com.alkl1m.auth.service.TokenRevocationService;
+import com.alkl1m.auth.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реализация TokenRevocationService с хранением отзывов в таблице revoked_token.
+ * В памяти держится зеркало таблицы: фильтр Блума и точное множество jti,
+ * а также время отзыва всех токенов по id пользователя. Проверка токена
+ * читает только это зеркало и не обращается к бд.
+ * Зеркало периодически перестраивается из таблицы, при этом из нее удаляются
+ * записи, покрываемые которыми токены уже истекли сами.
+ *
+ * @author alkl1m
+ */
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private static final Logger logger = LogManager.getLogger(TokenRevocationServiceImpl.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${application.security.jwt.expirationMs}")
+    private long jwtExpirationMs;
+
+    @Value("${application.security.jwt.revocation.expectedTokens:100000}")
+    private int expectedTokens;
+
+    @Value("${application.security.jwt.revocation.falsePositiveRate:0.01}")
+    private double falsePositiveRate;
+
+    private final Object lock = new Object();
+    private volatile Denylist denylist;
+
+    public TokenRevocationServiceImpl(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    /**
+     * Загружает отзывы из бд при старте.
+     */
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * Удаляет из бд отзывы, покрывающие только истекшие токены,
+     * и перестраивает зеркало из оставшихся записей.
+     * При ошибке продолжает работать с предыдущим зеркалом.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.refreshIntervalMs:30000}",
+            initialDelayString = "${application.security.jwt.revocation.refreshIntervalMs:30000}")
+    public void refresh() {
+        synchronized (lock) {
+            try {
+                Instant now = Instant.now();
+                int pruned = revokedTokenRepository.deleteExpired(now);
+                List<RevokedToken> revokedTokens = revokedTokenRepository.findByExpiresAtAfter(now);
+
+                Denylist rebuilt = new Denylist(
+                        new BloomFilter(Math.max(expectedTokens, revokedTokens.size() * 2), falsePositiveRate),
+                        ConcurrentHashMap.newKeySet(),
+                        new ConcurrentHashMap<>());
+                for (RevokedToken revokedToken : revokedTokens) {
+                    if (revokedToken.getJti() != null) {
+                        rebuilt.addToken(revokedToken.getJti());
+                    } else if (revokedToken.getUserId() != null) {
+                        rebuilt.addUser(revokedToken.getUserId(), revokedToken.getRevokedAt().toEpochMilli());
+                    }
+                }
+                denylist = rebuilt;
+                if (pruned > 0) {
+                    logger.info("Удалено {} истекших отзывов токенов", pruned);
+                }
+            } catch (RuntimeException e) {
+                if (denylist == null) {
+                    throw e;
+                }
+                logger.error("Не удалось обновить список отозванных токенов: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Отзывает один токен до момента его истечения.
+     *
+     * @param jti        идентификатор токена (claim jti).
+     * @param expiration время истечения токена.
+     */
+    @Override
+    public void revokeToken(String jti, Date expiration) {
+        if (jti == null || expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .revokedAt(Instant.now())
+                .expiresAt(expiration.toInstant())
+                .build());
+        synchronized (lock) {
+            denylist.addToken(jti);
+        }
+    }
+
+    /**
+     * Отзывает все токены пользователя, выпущенные до текущего момента.
+     *
+     * @param userId id пользователя.
+     */
+    @Override
+    public void revokeAllForUser(Long userId) {
+        Instant now = Instant.now();
+        revokedTokenRepository.save(RevokedToken.builder()
+                .userId(userId)
+                .revokedAt(now)
+                .expiresAt(now.plusMillis(jwtExpirationMs))
+                .build());
+        synchronized (lock) {
+            denylist.addUser(userId, now.toEpochMilli());
+        }
+    }
+
+    /**
+     * Проверяет, отозван ли токен. Отзыв пользователя покрывает токены, выпущенные
+     * строго раньше него; время выпуска и отзыва сравниваются с точностью до мс,
+     * поэтому повторный вход в ту же секунду, что и отзыв, не отклоняется.
+     *
+     * @param jti        идентификатор токена (claim jti), может быть null.
+     * @param userId     id пользователя, может быть null.
+     * @param issuedAtMs время выпуска токена.
+     * @return true, если токен отозван.
+     */
+    @Override
+    public boolean isRevoked(String jti, Long userId, long issuedAtMs) {
+        Denylist current = denylist;
+        if (jti != null && current.jtiFilter().mightContain(jti) && current.jtis().contains(jti)) {
+            return true;
+        }
+        if (userId == null || current.usersRevokedAtMs().isEmpty()) {
+            return false;
+        }
+        Long revokedAtMs = current.usersRevokedAtMs().get(userId);
+        return revokedAtMs != null && issuedAtMs < revokedAtMs;
+    }
+
+    private record Denylist(BloomFilter jtiFilter, Set<String> jtis, Map<Long, Long> usersRevokedAtMs) {
+
+        void addToken(String jti) {
+            jtis.add(jti);
+            jtiFilter.add(jti);
+        }
+
+        void addUser(Long userId, long revokedAtMs) {
+            usersRevokedAtMs.merge(userId, revokedAtMs, Math::max);
+        }
+    }
+
+}
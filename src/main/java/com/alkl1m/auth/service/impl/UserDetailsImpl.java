@@ -1,15 +1,13 @@
 package com.alkl1m.auth.service.impl;
 
 import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.util.RoleCodec;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Реализация UserDetails с дополнительными данными.
@@ -38,16 +36,12 @@ public class UserDetailsImpl implements UserDetails {
     }
 
     public static UserDetailsImpl build(User user) {
-        List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-                .collect(Collectors.toList());
-
         return new UserDetailsImpl(
                 user.getId(),
                 user.getLogin(),
                 user.getEmail(),
                 user.getPassword(),
-                authorities);
+                RoleCodec.authorities(RoleCodec.mask(user.getRoles())));
     }
 
     @Override
@@ -4,18 +4,21 @@ import com.alkl1m.auth.domain.entity.User;
 import com.alkl1m.auth.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Реализация UserDetailsService с загрузкой из бд юзера по логину.
+ * Реализация UserDetailsService с загрузкой из бд юзера по логину
+ * и сохранением пересчитанного при входе хеша пароля.
  *
  * @author alkl1m
  */
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -26,4 +29,20 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return UserDetailsImpl.build(user);
     }
+
+    /**
+     * Сохраняет хеш пароля, пересчитанный по текущей политике после успешного входа.
+     *
+     * @param user        загруженный при входе пользователь.
+     * @param newPassword новый хеш пароля.
+     * @return пользователь с новым хешем.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByLogin(user.getUsername(), newPassword);
+        UserDetailsImpl userDetails = (UserDetailsImpl) user;
+        userDetails.setPassword(newPassword);
+        return userDetails;
+    }
 }
@@ -1,5 +1,6 @@
 package com.alkl1m.auth.service.impl;
 
+import com.alkl1m.auth.domain.entity.Role;
 import com.alkl1m.auth.domain.entity.User;
 import com.alkl1m.auth.domain.enums.ERole;
 import com.alkl1m.auth.domain.exception.UserAlreadyExistsException;
@@ -7,44 +8,70 @@ import com.alkl1m.auth.repository.RoleRepository;
 import com.alkl1m.auth.repository.UserRepository;
 import com.alkl1m.auth.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
 import java.util.Set;
 
 /**
- * Реализация UserService, сохраняющая пользователя и проверяющая его существование.
+ * Реализация UserService, сохраняющая пользователя. Существование пользователя
+ * проверяется уникальными ограничениями на логин и почту при вставке, а не
+ * отдельными запросами, поэтому параллельные регистрации не могут проскочить проверку.
  *
  * @author alkl1m
  */
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
 
+    private volatile Long userRoleId;
+
     /**
-     * Сохранение нового пользователя, если его не существует.
+     * Сохранение нового пользователя с ролью USER. Выполняет только вставку
+     * пользователя и связи с ролью: id роли берется из кэша.
      *
      * @param login    логин нового юзера.
      * @param email    почта нового юзера.
      * @param password пароль нового юзера.
+     * @throws UserAlreadyExistsException если логин или почта уже заняты.
      */
     @Override
+    @Transactional
     public void save(String login, String email, String password) {
-        checkUserExists(login, email);
-
         User user = new User(
                 login,
                 email,
                 password,
-                Set.of(roleRepository.findByName(ERole.USER).orElseThrow())
+                Set.of(roleRepository.getReferenceById(userRoleId()))
         );
-        userRepository.save(user);
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isUniqueViolation(e)) {
+                throw new UserAlreadyExistsException("Пользователь уже зарегистрирован");
+            }
+            throw e;
+        }
     }
 
-    private void checkUserExists(String login, String email) {
-        if (userRepository.existsByLogin(login) || userRepository.existsByEmail(email)) {
-            throw new UserAlreadyExistsException("Пользователь уже зарегистрирован");
+    private Long userRoleId() {
+        Long roleId = userRoleId;
+        if (roleId == null) {
+            roleId = roleRepository.findByName(ERole.USER).map(Role::getId).orElseThrow();
+            userRoleId = roleId;
         }
+        return roleId;
+    }
+
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        return NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException
+                && UNIQUE_VIOLATION.equals(sqlException.getSQLState());
     }
 }
@@ -0,0 +1,146 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.enums.ETokenFailure;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Дешевая предварительная проверка JWT до разбора и проверки подписи.
+ * Отсекает структурно некорректные и уже истекшие токены без криптографии
+ * и без исключений, считая отказы по причинам.
+ * Пропущенный токен все равно проходит полную проверку.
+ *
+ * @author alkl1m
+ */
+@Component
+public class JwtPreValidator {
+
+    private static final int MAX_TOKEN_LENGTH = 8192;
+    private static final byte[] EXP_KEY = {'"', 'e', 'x', 'p', '"'};
+
+    private final Map<ETokenFailure, Counter> rejections = new EnumMap<>(ETokenFailure.class);
+
+    public JwtPreValidator(MeterRegistry meterRegistry) {
+        for (ETokenFailure failure : ETokenFailure.values()) {
+            rejections.put(failure, Counter.builder("auth.jwt.precheck.rejected")
+                    .tag("reason", failure.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Проверяет структуру compact JWS (три сегмента base64url) и claim exp.
+     *
+     * @param token JWT токен.
+     * @return причина отказа или null, если токен нужно проверить полностью.
+     */
+    public ETokenFailure check(String token) {
+        ETokenFailure failure = checkToken(token);
+        if (failure != null) {
+            rejections.get(failure).increment();
+        }
+        return failure;
+    }
+
+    /**
+     * Возвращает количество отказов по причине.
+     *
+     * @param failure причина отказа.
+     * @return количество отказов с момента старта.
+     */
+    public long getRejections(ETokenFailure failure) {
+        return (long) rejections.get(failure).count();
+    }
+
+    private ETokenFailure checkToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return ETokenFailure.EMPTY;
+        }
+        int length = token.length();
+        if (length > MAX_TOKEN_LENGTH) {
+            return ETokenFailure.MALFORMED;
+        }
+
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return ETokenFailure.MALFORMED;
+                }
+            } else if (!isBase64Url(c)) {
+                return ETokenFailure.MALFORMED;
+            }
+        }
+
+        int payloadLength = secondDot - firstDot - 1;
+        if (firstDot <= 0 || secondDot < 0 || payloadLength <= 0 || payloadLength % 4 == 1) {
+            return ETokenFailure.MALFORMED;
+        }
+        if (secondDot == length - 1) {
+            return ETokenFailure.UNSUPPORTED;
+        }
+
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(firstDot + 1, secondDot));
+        long exp = readExp(payload);
+        if (exp > 0 && exp * 1000 < System.currentTimeMillis()) {
+            return ETokenFailure.EXPIRED;
+        }
+        return null;
+    }
+
+    /**
+     * Ищет в JSON claims числовое значение ключа "exp" без полного разбора.
+     *
+     * @param payload декодированный payload токена.
+     * @return значение exp в секундах или -1, если его не удалось найти.
+     */
+    private static long readExp(byte[] payload) {
+        outer:
+        for (int i = 0; i <= payload.length - EXP_KEY.length; i++) {
+            for (int j = 0; j < EXP_KEY.length; j++) {
+                if (payload[i + j] != EXP_KEY[j]) {
+                    continue outer;
+                }
+            }
+            int pos = skipWhitespace(payload, i + EXP_KEY.length);
+            if (pos >= payload.length || payload[pos] != ':') {
+                continue;
+            }
+            pos = skipWhitespace(payload, pos + 1);
+
+            long value = 0;
+            int digits = 0;
+            while (pos < payload.length && payload[pos] >= '0' && payload[pos] <= '9' && digits < 18) {
+                value = value * 10 + (payload[pos] - '0');
+                pos++;
+                digits++;
+            }
+            return digits > 0 ? value : -1;
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] payload, int pos) {
+        while (pos < payload.length && (payload[pos] == ' ' || payload[pos] == '\t'
+                || payload[pos] == '\n' || payload[pos] == '\r')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isBase64Url(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+
+}
@@ -1,28 +1,42 @@
 package com.alkl1m.auth.util;
 
 import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.domain.enums.ESecurityEvent;
+import com.alkl1m.auth.domain.enums.ETokenFailure;
+import com.alkl1m.auth.domain.exception.UnknownSigningKeyException;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.service.SigningKeyService;
 import com.alkl1m.auth.service.impl.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.UnsupportedJwtException;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseCookie;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.WebUtils;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Утилита для работы с JSON Web Tokens.
@@ -31,21 +45,47 @@ import java.util.Optional;
  * @author alkl1m
  */
 @Component
+@RequiredArgsConstructor
 public class JwtUtils {
 
-    @Value("${application.security.jwt.secret}")
-    private String jwtSecret;
+    /**
+     * Время исходной аутентификации пользователя (NumericDate в секундах).
+     * Сохраняется при скользящем перевыпуске токена.
+     */
+    public static final String AUTH_TIME_CLAIM = "auth_time";
+
+    /**
+     * Время выпуска токена в мс. Claim iat хранит только секунды, а отзыв всех
+     * токенов пользователя сравнивается с временем выпуска с точностью до мс.
+     */
+    public static final String ISSUED_AT_MS_CLAIM = "iat_ms";
+
+    private final SigningKeyService signingKeyService;
+    private final JwtPreValidator jwtPreValidator;
+    private final SecurityEventLogger securityEventLogger;
 
     @Value("${application.security.jwt.expirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${application.security.jwt.compactRoles:false}")
+    private boolean compactRoles;
+
     @Value("${application.security.jwt.cookieName}")
     private String jwtCookie;
 
     @Value("${application.security.jwt.refreshCookieName}")
     private String jwtRefreshCookie;
 
-    private static final Logger logger = LogManager.getLogger(JwtUtils.class);
+    private JwtParser jwtParser;
+
+    /**
+     * Один раз строит парсер, который затем переиспользуется для всех токенов.
+     * Ключ проверки выбирается по kid из заголовка токена.
+     */
+    @PostConstruct
+    public void init() {
+        jwtParser = Jwts.parser().keyLocator(this::locateKey).build();
+    }
 
     /**
      * Генерирует JWT cookie на основе информации о пользователе.
@@ -54,18 +94,29 @@ public class JwtUtils {
      * @return ResponseCookie с JWT
      */
     public ResponseCookie generateJwtCookie(UserDetailsImpl userPrincipal) {
-        String jwt = generateTokenFromUserDetails(userPrincipal);
+        return generateJwtCookie(userPrincipal, System.currentTimeMillis());
+    }
+
+    /**
+     * Генерирует JWT cookie с заданным временем исходной аутентификации.
+     *
+     * @param userPrincipal объект, содержащий информацию о пользователе
+     * @param authTimeMs    время исходной аутентификации в мс
+     * @return ResponseCookie с JWT
+     */
+    public ResponseCookie generateJwtCookie(UserDetailsImpl userPrincipal, long authTimeMs) {
+        String jwt = generateTokenFromUserDetails(userPrincipal, authTimeMs);
         return generateCookie(jwtCookie, jwt);
     }
 
     /**
-     * Генерирует JWT cookie на основе объекта пользователя.
+     * Генерирует JWT cookie на основе данных пользователя из проекции.
      *
-     * @param user объект пользователя
+     * @param tokenClaims id, логин и роли пользователя
      * @return ResponseCookie с JWT
      */
-    public ResponseCookie generateJwtCookie(User user) {
-        String jwt = generateTokenFromUser(user);
+    public ResponseCookie generateJwtCookie(TokenClaims tokenClaims) {
+        String jwt = generateTokenFromClaims(tokenClaims);
         return generateCookie(jwtCookie, jwt);
     }
 
@@ -125,17 +176,49 @@ public class JwtUtils {
      * @return логин пользователя
      */
     public String getLoginFromJwtToken(String token) {
-        return Jwts.parser().verifyWith(key()).build()
-                .parseSignedClaims(token).getPayload().getSubject();
+        return jwtParser.parseSignedClaims(token).getPayload().getSubject();
     }
 
     /**
-     * Генерирует секретный ключ на основе конфигурации.
+     * Восстанавливает принципала из проверенных claims JWT токена без обращения к бд.
      *
-     * @return SecretKey для подписи JWT
+     * @param claims claims проверенного токена
+     * @return UserDetailsImpl с id, логином и ролями из токена
      */
-    private SecretKey key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        return new UserDetailsImpl(
+                claims.get("id", Long.class),
+                claims.getSubject(),
+                null,
+                null,
+                getAuthoritiesFromClaims(claims));
+    }
+
+    /**
+     * Восстанавливает authorities из claims: из компактной маски rm или из списка roles.
+     * Для ролей из ERole возвращается общий заранее построенный список.
+     *
+     * @param claims claims проверенного токена
+     * @return authorities пользователя
+     */
+    private List<? extends GrantedAuthority> getAuthoritiesFromClaims(Claims claims) {
+        String roleMask = claims.get(RoleCodec.CLAIM, String.class);
+        if (roleMask != null) {
+            List<GrantedAuthority> authorities = RoleCodec.decode(roleMask);
+            if (authorities != null) {
+                return authorities;
+            }
+        }
+
+        List<?> roles = Optional.ofNullable(claims.get("roles", List.class))
+                .orElse(Collections.emptyList());
+        int mask = RoleCodec.maskOfAuthorities(roles);
+        if (mask >= 0) {
+            return RoleCodec.authorities(mask);
+        }
+        return roles.stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
     }
 
     /**
@@ -145,20 +228,29 @@ public class JwtUtils {
      * @return true, если токен валиден; false в противном случае
      */
     public boolean validateJwtToken(String authToken) {
+        return verifyJwtToken(authToken).isValid();
+    }
+
+    /**
+     * Проверяет подпись и срок действия JWT токена за один разбор.
+     * Структурно некорректные и истекшие токены отсекаются до проверки подписи.
+     *
+     * @param authToken JWT токен для проверки
+     * @return claims токена, если он валиден; иначе причина отказа
+     */
+    public JwtVerification verifyJwtToken(String authToken) {
+        ETokenFailure preCheckFailure = jwtPreValidator.check(authToken);
+        if (preCheckFailure != null) {
+            securityEventLogger.record(ESecurityEvent.of(preCheckFailure), "rejected before signature verification");
+            return JwtVerification.failed(preCheckFailure);
+        }
         try {
-            Jwts.parser().verifyWith(key()).build().parseSignedClaims(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
+            return JwtVerification.valid(jwtParser.parseSignedClaims(authToken).getPayload());
+        } catch (JwtException | IllegalArgumentException e) {
+            ETokenFailure failure = toFailure(e);
+            securityEventLogger.record(ESecurityEvent.of(failure), e.getMessage());
+            return JwtVerification.failed(failure);
         }
-
-        return false;
     }
 
     /**
@@ -168,19 +260,10 @@ public class JwtUtils {
      * @return сгенерированный JWT токен в виде строки
      */
     public String generateTokenFromUser(User user) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", user.getRoles().stream()
+        int mask = compactRoles ? RoleCodec.mask(user.getRoles()) : -1;
+        return generateToken(user.getId(), user.getLogin(), mask, () -> user.getRoles().stream()
                 .map(role -> role.getName().name())
-                .toList());
-
-        return Jwts
-                .builder()
-                .claims(claims)
-                .subject(user.getLogin())
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(key(), Jwts.SIG.HS256)
-                .compact();
+                .toList(), System.currentTimeMillis());
     }
 
     /**
@@ -190,22 +273,113 @@ public class JwtUtils {
      * @return сгенерированный JWT токен в виде строки
      */
     public String generateTokenFromUserDetails(UserDetailsImpl userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("id", userDetails.getId());
-        claims.put("roles", userDetails.getAuthorities().stream()
+        return generateTokenFromUserDetails(userDetails, System.currentTimeMillis());
+    }
+
+    /**
+     * Генерирует JWT токен на основе объекта UserDetailsImpl с заданным временем
+     * исходной аутентификации.
+     *
+     * @param userDetails объект UserDetailsImpl
+     * @param authTimeMs  время исходной аутентификации в мс
+     * @return сгенерированный JWT токен в виде строки
+     */
+    public String generateTokenFromUserDetails(UserDetailsImpl userDetails, long authTimeMs) {
+        int mask = compactRoles ? RoleCodec.maskOfAuthorities(userDetails.getAuthorities()) : -1;
+        return generateToken(userDetails.getId(), userDetails.getLogin(), mask, () -> userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
-                .toList());
+                .toList(), authTimeMs);
+    }
 
-        return Jwts
+    /**
+     * Генерирует JWT токен на основе данных пользователя из проекции.
+     *
+     * @param tokenClaims id, логин и роли пользователя
+     * @return сгенерированный JWT токен в виде строки
+     */
+    public String generateTokenFromClaims(TokenClaims tokenClaims) {
+        List<String> roles = tokenClaims.getRoleNames();
+        int mask = compactRoles ? RoleCodec.maskOfAuthorities(roles) : -1;
+        return generateToken(tokenClaims.getId(), tokenClaims.getLogin(), mask, () -> roles, System.currentTimeMillis());
+    }
+
+    /**
+     * Генерирует JWT токен с одинаковым набором claims для всех способов выпуска.
+     *
+     * @param id    id пользователя
+     * @param login логин пользователя
+     * @param mask  маска ролей для компактного формата или -1 для списка ролей
+     * @param roles      названия ролей, запрашиваются только для формата со списком
+     * @param authTimeMs время исходной аутентификации в мс
+     * @return сгенерированный JWT токен в виде строки
+     */
+    private String generateToken(Long id, String login, int mask, Supplier<List<String>> roles, long authTimeMs) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("id", id);
+        claims.put(AUTH_TIME_CLAIM, authTimeMs / 1000);
+        claims.put(ISSUED_AT_MS_CLAIM, now);
+        if (mask >= 0) {
+            claims.put(RoleCodec.CLAIM, RoleCodec.encode(mask));
+        } else {
+            claims.put("roles", roles.get());
+        }
+
+        return sign(Jwts
                 .builder()
                 .claims(claims)
-                .subject(userDetails.getLogin())
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(key(), Jwts.SIG.HS256)
+                .id(UUID.randomUUID().toString())
+                .subject(login)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + jwtExpirationMs)));
+    }
+
+    /**
+     * Определяет причину отказа по исключению, брошенному при разборе токена.
+     *
+     * @param e исключение jjwt или IllegalArgumentException для пустого токена
+     * @return причина отказа
+     */
+    private static ETokenFailure toFailure(RuntimeException e) {
+        return switch (e) {
+            case ExpiredJwtException ignored -> ETokenFailure.EXPIRED;
+            case UnsupportedJwtException ignored -> ETokenFailure.UNSUPPORTED;
+            case SignatureException ignored -> ETokenFailure.INVALID_SIGNATURE;
+            case UnknownSigningKeyException ignored -> ETokenFailure.UNKNOWN_KEY;
+            case IllegalArgumentException ignored -> ETokenFailure.EMPTY;
+            default -> ETokenFailure.MALFORMED;
+        };
+    }
+
+    /**
+     * Подписывает токен активным ключом и указывает его kid в заголовке.
+     *
+     * @param builder билдер токена с заполненными claims
+     * @return подписанный JWT токен в виде строки
+     */
+    private String sign(JwtBuilder builder) {
+        SigningKey signingKey = signingKeyService.getActiveKey();
+        return builder
+                .header().keyId(signingKey.kid()).and()
+                .signWith(signingKey.signingKey(), signingKey.algorithm())
                 .compact();
     }
 
+    /**
+     * Находит ключ проверки по kid из заголовка токена.
+     *
+     * @param header заголовок токена
+     * @return ключ проверки подписи
+     */
+    private Key locateKey(Header header) {
+        String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        SigningKey signingKey = signingKeyService.findByKid(kid);
+        if (signingKey == null) {
+            throw new UnknownSigningKeyException(kid);
+        }
+        return signingKey.verificationKey();
+    }
+
     /**
      * Создает cookie с заданным именем и значением.
      *
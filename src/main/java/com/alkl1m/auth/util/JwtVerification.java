@@ -0,0 +1,30 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.enums.ETokenFailure;
+import io.jsonwebtoken.Claims;
+
+/**
+ * Результат однократной проверки JWT: либо claims токена, либо причина отказа.
+ *
+ * @param claims  claims проверенного токена, null если токен не валиден.
+ * @param failure причина отказа, null если токен валиден.
+ * @author alkl1m
+ */
+public record JwtVerification(
+        Claims claims,
+        ETokenFailure failure
+) {
+
+    public static JwtVerification valid(Claims claims) {
+        return new JwtVerification(claims, null);
+    }
+
+    public static JwtVerification failed(ETokenFailure failure) {
+        return new JwtVerification(null, failure);
+    }
+
+    public boolean isValid() {
+        return failure == null;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.alkl1m.auth.util;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Утилита для создания кодировщика паролей по текущей политике хеширования.
+ *
+ * @author alkl1m
+ */
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private static final String BCRYPT_PREFIX = "{" + BCRYPT + "}";
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private PasswordEncoders() {
+    }
+
+    /**
+     * Подбирает наибольшую стоимость BCrypt, при которой один хеш
+     * на текущей машине считается не дольше целевого времени.
+     *
+     * @param targetHashMs целевое время одного хеша.
+     * @param minStrength  минимальная стоимость, возвращается даже если она медленнее цели.
+     * @param maxStrength  максимальная стоимость.
+     * @return подобранная стоимость.
+     */
+    public static int calibrateBCryptStrength(long targetHashMs, int minStrength, int maxStrength) {
+        BCrypt.hashpw(CALIBRATION_PASSWORD, BCrypt.gensalt(minStrength));
+        int strength = minStrength;
+        while (strength < maxStrength) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(CALIBRATION_PASSWORD, BCrypt.gensalt(strength + 1));
+            if ((System.nanoTime() - start) / 1_000_000 > targetHashMs) {
+                break;
+            }
+            strength++;
+        }
+        return strength;
+    }
+
+    /**
+     * Создает DelegatingPasswordEncoder, перехеширующий хеши BCrypt ниже стоимости новых хешей.
+     *
+     * @param idForEncode    алгоритм для новых хешей.
+     * @param bcryptStrength стоимость BCrypt для новых хешей.
+     * @return кодировщик паролей.
+     * @see #delegating(String, int, int)
+     */
+    public static PasswordEncoder delegating(String idForEncode, int bcryptStrength) {
+        return delegating(idForEncode, bcryptStrength, bcryptStrength);
+    }
+
+    /**
+     * Создает DelegatingPasswordEncoder с идентификаторами bcrypt, pbkdf2 и argon2
+     * (argon2 - только если на classpath есть BouncyCastle).
+     * Хеши без префикса {id} считаются хешами BCrypt. Хеш BCrypt требует перехеширования,
+     * только если политика сменила алгоритм или его стоимость ниже upgradeStrength.
+     * Порог задается общим для всех узлов, поэтому стоимость, подобранная на одном узле,
+     * не навязывается хешам через перехеширование.
+     *
+     * @param idForEncode     алгоритм для новых хешей.
+     * @param bcryptStrength  стоимость BCrypt для новых хешей.
+     * @param upgradeStrength стоимость BCrypt, ниже которой хеш перехешируется.
+     * @return кодировщик паролей.
+     */
+    public static PasswordEncoder delegating(String idForEncode, int bcryptStrength, int upgradeStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        BCryptPasswordEncoder upgradeThreshold = new BCryptPasswordEncoder(upgradeStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (isArgon2Available()) {
+            encoders.put(ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        }
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalStateException("Unsupported password hashing algorithm: " + idForEncode);
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(idForEncode, encoders) {
+            @Override
+            public boolean upgradeEncoding(String prefixEncodedPassword) {
+                String bcryptHash = bcryptHash(prefixEncodedPassword);
+                if (bcryptHash != null) {
+                    return !BCRYPT.equals(idForEncode) || upgradeThreshold.upgradeEncoding(bcryptHash);
+                }
+                return super.upgradeEncoding(prefixEncodedPassword);
+            }
+        };
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+
+    /**
+     * Хеш BCrypt без префикса {bcrypt} или null, если хеш другого алгоритма.
+     */
+    private static String bcryptHash(String prefixEncodedPassword) {
+        if (prefixEncodedPassword == null) {
+            return null;
+        }
+        if (prefixEncodedPassword.startsWith(BCRYPT_PREFIX)) {
+            return prefixEncodedPassword.substring(BCRYPT_PREFIX.length());
+        }
+        return prefixEncodedPassword.startsWith("{") ? null : prefixEncodedPassword;
+    }
+
+    private static boolean isArgon2Available() {
+        return ClassUtils.isPresent("org.bouncycastle.crypto.params.Argon2Parameters",
+                PasswordEncoders.class.getClassLoader());
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.entity.Role;
+import com.alkl1m.auth.domain.enums.ERole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Компактное представление набора ролей в виде битовой маски по ordinal ERole.
+ * В токене маска хранится в claim rm в формате "версия:маска в hex", например "1:ff".
+ * Для каждой возможной маски заранее построен неизменяемый список authorities,
+ * поэтому декодирование не создает новых объектов.
+ *
+ * @author alkl1m
+ */
+public final class RoleCodec {
+
+    public static final String CLAIM = "rm";
+    public static final int VERSION = 1;
+
+    private static final ERole[] ROLES = ERole.values();
+    private static final List<GrantedAuthority>[] AUTHORITIES = buildAuthorities();
+
+    private RoleCodec() {
+    }
+
+    /**
+     * Строит маску по ролям пользователя.
+     *
+     * @param roles роли пользователя.
+     * @return битовая маска ролей.
+     */
+    public static int mask(Collection<Role> roles) {
+        int mask = 0;
+        for (Role role : roles) {
+            mask |= 1 << role.getName().ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Строит маску по authorities принципала.
+     *
+     * @param authorities authorities принципала.
+     * @return битовая маска ролей или -1, если среди authorities есть не роль.
+     */
+    public static int maskOfAuthorities(Collection<?> authorities) {
+        int mask = 0;
+        for (Object authority : authorities) {
+            String name = authority instanceof GrantedAuthority grantedAuthority
+                    ? grantedAuthority.getAuthority()
+                    : String.valueOf(authority);
+            ERole role = find(name);
+            if (role == null) {
+                return -1;
+            }
+            mask |= 1 << role.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Возвращает общий неизменяемый список authorities для маски.
+     *
+     * @param mask битовая маска ролей.
+     * @return список authorities в порядке ERole.
+     */
+    public static List<GrantedAuthority> authorities(int mask) {
+        return AUTHORITIES[mask];
+    }
+
+    /**
+     * Кодирует маску в значение claim с версией формата.
+     *
+     * @param mask битовая маска ролей.
+     * @return значение claim rm.
+     */
+    public static String encode(int mask) {
+        return VERSION + ":" + Integer.toHexString(mask);
+    }
+
+    /**
+     * Декодирует значение claim rm.
+     *
+     * @param claim значение claim rm.
+     * @return список authorities или null, если формат или версия не поддерживаются.
+     */
+    public static List<GrantedAuthority> decode(String claim) {
+        int separator = claim.indexOf(':');
+        if (separator <= 0 || separator == claim.length() - 1) {
+            return null;
+        }
+        try {
+            if (Integer.parseInt(claim, 0, separator, 10) != VERSION) {
+                return null;
+            }
+            int mask = Integer.parseInt(claim, separator + 1, claim.length(), 16);
+            return mask >= 0 && mask < AUTHORITIES.length ? AUTHORITIES[mask] : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ERole find(String name) {
+        for (ERole role : ROLES) {
+            if (role.name().equals(name)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<GrantedAuthority>[] buildAuthorities() {
+        if (ROLES.length > 16) {
+            throw new IllegalStateException("Слишком много ролей для компактной кодировки: " + ROLES.length);
+        }
+        GrantedAuthority[] single = new GrantedAuthority[ROLES.length];
+        for (ERole role : ROLES) {
+            single[role.ordinal()] = new SimpleGrantedAuthority(role.name());
+        }
+
+        List<GrantedAuthority>[] authorities = new List[1 << ROLES.length];
+        for (int mask = 0; mask < authorities.length; mask++) {
+            List<GrantedAuthority> list = new ArrayList<>(Integer.bitCount(mask));
+            for (int i = 0; i < ROLES.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    list.add(single[i]);
+                }
+            }
+            authorities[mask] = List.copyOf(list);
+        }
+        return authorities;
+    }
+
+}
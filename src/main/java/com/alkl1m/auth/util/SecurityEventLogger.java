@@ -0,0 +1,119 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.enums.ESecurityEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Канал событий безопасности (невалидные токены, 401, ошибки аутентификации).
+ * Каждое событие учитывается в счетчике, но в лог по каждой причине попадает
+ * не больше заданного числа строк за окно, остальные только подсчитываются.
+ * Раз в интервал в лог пишется одна сводная строка по всем причинам.
+ *
+ * @author alkl1m
+ */
+@Component
+public class SecurityEventLogger {
+
+    private static final Logger logger = LogManager.getLogger(SecurityEventLogger.class);
+
+    private final long windowMs;
+    private final int maxPerWindow;
+
+    private final Map<ESecurityEvent, EventStats> stats = new EnumMap<>(ESecurityEvent.class);
+
+    public SecurityEventLogger(@Value("${application.security.events.windowMs:1000}") long windowMs,
+                               @Value("${application.security.events.maxPerWindow:5}") int maxPerWindow,
+                               MeterRegistry meterRegistry) {
+        this.windowMs = windowMs;
+        this.maxPerWindow = maxPerWindow;
+
+        for (ESecurityEvent event : ESecurityEvent.values()) {
+            EventStats eventStats = new EventStats();
+            stats.put(event, eventStats);
+            FunctionCounter.builder("auth.security.events", eventStats.total, LongAdder::sum)
+                    .tag("event", event.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Учитывает событие и, если лимит окна по этой причине не исчерпан, пишет его в лог.
+     * Детали приводятся к строке только при записи в лог.
+     *
+     * @param event  событие.
+     * @param detail подробности события.
+     * @return true, если событие записано в лог.
+     */
+    public boolean record(ESecurityEvent event, Object detail) {
+        EventStats eventStats = stats.get(event);
+        eventStats.total.increment();
+        if (eventStats.tryAcquire(System.currentTimeMillis())) {
+            logger.warn("{}: {}", event, detail);
+            return true;
+        }
+        eventStats.suppressed.increment();
+        return false;
+    }
+
+    /**
+     * Возвращает количество событий с момента старта.
+     *
+     * @param event событие.
+     * @return количество событий.
+     */
+    public long getCount(ESecurityEvent event) {
+        return stats.get(event).total.sum();
+    }
+
+    /**
+     * Пишет сводную строку по событиям, случившимся с прошлой сводки.
+     */
+    @Scheduled(fixedDelayString = "${application.security.events.summaryIntervalMs:60000}",
+            initialDelayString = "${application.security.events.summaryIntervalMs:60000}")
+    public void logSummary() {
+        StringJoiner summary = new StringJoiner(", ");
+        stats.forEach((event, eventStats) -> {
+            long total = eventStats.total.sum();
+            long count = total - eventStats.lastReported;
+            eventStats.lastReported = total;
+            long suppressed = eventStats.suppressed.sumThenReset();
+            if (count > 0) {
+                summary.add(event + "=" + count + " (не залогировано " + suppressed + ")");
+            }
+        });
+        if (summary.length() > 0) {
+            logger.warn("События безопасности с прошлой сводки: {}", summary);
+        }
+    }
+
+    private final class EventStats {
+
+        private final LongAdder total = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+        private final AtomicLong windowStart = new AtomicLong();
+        private final AtomicInteger windowCount = new AtomicInteger();
+        private long lastReported;
+
+        private boolean tryAcquire(long now) {
+            long start = windowStart.get();
+            if (now - start >= windowMs && windowStart.compareAndSet(start, now)) {
+                windowCount.set(0);
+            }
+            return windowCount.get() < maxPerWindow && windowCount.incrementAndGet() <= maxPerWindow;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.alkl1m.auth.util;
+
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+
+import java.security.Key;
+import java.security.PublicKey;
+
+/**
+ * Ключ подписи JWT с идентификатором (kid) и алгоритмом.
+ *
+ * @param kid             идентификатор ключа, пишется в заголовок токена.
+ * @param algorithm       алгоритм подписи (HS256, ES256, EdDSA).
+ * @param signingKey      ключ для подписи: секрет для HMAC или приватный ключ.
+ * @param verificationKey ключ для проверки: секрет для HMAC или публичный ключ.
+ * @author alkl1m
+ */
+public record SigningKey(
+        String kid,
+        SecureDigestAlgorithm<Key, ?> algorithm,
+        Key signingKey,
+        Key verificationKey
+) {
+
+    /**
+     * Проверяет, можно ли опубликовать ключ проверки в JWKS.
+     *
+     * @return true для асимметричных ключей.
+     */
+    public boolean isAsymmetric() {
+        return verificationKey instanceof PublicKey;
+    }
+
+}
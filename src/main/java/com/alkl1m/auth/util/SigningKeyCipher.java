@@ -0,0 +1,113 @@
+package com.alkl1m.auth.util;
+
+import io.jsonwebtoken.io.Decoders;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Шифрование приватной части ключей подписи для хранения в таблице signing_key
+ * (AES-256-GCM). Ключ шифрования хранится вне бд: задается явно или выводится
+ * из секрета jwt.secret, поэтому доступ только к бд не позволяет подделать токены.
+ * Значения без префикса считаются записанными до включения шифрования.
+ *
+ * @author alkl1m
+ */
+public final class SigningKeyCipher {
+
+    private static final String PREFIX = "enc:v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final byte[] KEY_CONTEXT = "signing-key-encryption".getBytes(StandardCharsets.UTF_8);
+
+    private final SecretKey key;
+    private final SecureRandom random = new SecureRandom();
+
+    private SigningKeyCipher(SecretKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Создает шифр по ключу из конфигурации.
+     *
+     * @param encryptionKey ключ шифрования в base64 (32 байта), если пустой - выводится из jwtSecret.
+     * @param jwtSecret     секрет HS256 в base64.
+     * @return шифр.
+     */
+    public static SigningKeyCipher create(String encryptionKey, String jwtSecret) {
+        if (encryptionKey != null && !encryptionKey.isBlank()) {
+            byte[] keyBytes = Decoders.BASE64.decode(encryptionKey);
+            if (keyBytes.length != 32) {
+                throw new IllegalStateException("Signing key encryption key must be 32 bytes");
+            }
+            return new SigningKeyCipher(new SecretKeySpec(keyBytes, "AES"));
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(Decoders.BASE64.decode(jwtSecret), "HmacSHA256"));
+            return new SigningKeyCipher(new SecretKeySpec(mac.doFinal(KEY_CONTEXT), "AES"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive signing key encryption key", e);
+        }
+    }
+
+    /**
+     * Шифрует значение.
+     *
+     * @param plaintext значение в открытом виде.
+     * @return зашифрованное значение с префиксом версии.
+     */
+    public String encrypt(String plaintext) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            return PREFIX + Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt signing key", e);
+        }
+    }
+
+    /**
+     * Расшифровывает значение. Значение без префикса возвращается как есть.
+     *
+     * @param stored значение из бд.
+     * @return значение в открытом виде.
+     */
+    public String decrypt(String stored) {
+        if (!isEncrypted(stored)) {
+            return stored;
+        }
+        try {
+            byte[] data = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, data, 0, IV_LENGTH));
+            return new String(cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decrypt signing key, check the encryption key", e);
+        }
+    }
+
+    /**
+     * Проверяет, зашифровано ли значение.
+     *
+     * @param stored значение из бд.
+     * @return true, если значение записано этим шифром.
+     */
+    public boolean isEncrypted(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.alkl1m.auth.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Утилита для создания, чтения и публикации ключей подписи JWT.
+ *
+ * @author alkl1m
+ */
+public final class SigningKeys {
+
+    public static final String HS256 = "HS256";
+    public static final String ES256 = "ES256";
+    public static final String EDDSA = "EdDSA";
+
+    private SigningKeys() {
+    }
+
+    /**
+     * Создает HMAC ключ из секрета в base64.
+     *
+     * @param kid    идентификатор ключа, если null - вычисляется из секрета.
+     * @param secret секрет в base64.
+     * @return ключ подписи HS256.
+     */
+    public static SigningKey hmac(String kid, String secret) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        return new SigningKey(kidOrDerived(kid, key), algorithm(HS256), key, key);
+    }
+
+    /**
+     * Читает асимметричную пару ключей из base64 DER (PKCS#8 и X.509).
+     *
+     * @param kid        идентификатор ключа, если null - вычисляется из публичного ключа.
+     * @param algorithm  алгоритм подписи (ES256 или EdDSA).
+     * @param privateKey приватный ключ в base64 PKCS#8, может быть null для ключа только на проверку.
+     * @param publicKey  публичный ключ в base64 X.509.
+     * @return ключ подписи.
+     */
+    public static SigningKey fromEncoded(String kid, String algorithm, String privateKey, String publicKey) {
+        if (HS256.equals(algorithm)) {
+            return hmac(kid, privateKey);
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyFactoryAlgorithm(algorithm));
+            PublicKey verificationKey = keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey)));
+            Key signingKey = privateKey == null ? null : keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey)));
+            return new SigningKey(kidOrDerived(kid, verificationKey), algorithm(algorithm), signingKey, verificationKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(String.format("Invalid %s signing key", algorithm), e);
+        }
+    }
+
+    /**
+     * Генерирует новый ключ подписи.
+     *
+     * @param algorithm алгоритм подписи (HS256, ES256 или EdDSA).
+     * @return новый ключ подписи.
+     */
+    public static SigningKey generate(String algorithm) {
+        if (HS256.equals(algorithm)) {
+            SecretKey key = Jwts.SIG.HS256.key().build();
+            return new SigningKey(kidOrDerived(null, key), algorithm(HS256), key, key);
+        }
+        try {
+            KeyPairGenerator generator;
+            if (ES256.equals(algorithm)) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                generator = KeyPairGenerator.getInstance("Ed25519");
+            }
+            KeyPair keyPair = generator.generateKeyPair();
+            return new SigningKey(kidOrDerived(null, keyPair.getPublic()), algorithm(algorithm),
+                    keyPair.getPrivate(), keyPair.getPublic());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(String.format("Can't generate %s signing key", algorithm), e);
+        }
+    }
+
+    /**
+     * Кодирует ключ в base64 DER.
+     *
+     * @param key ключ.
+     * @return строка base64 или null, если ключа нет.
+     */
+    public static String encode(Key key) {
+        return key == null ? null : Base64.getEncoder().encodeToString(key.getEncoded());
+    }
+
+    /**
+     * Представляет публичную часть ключа в виде JWK для публикации в JWKS.
+     *
+     * @param signingKey асимметричный ключ подписи.
+     * @return JWK с kid, alg и use=sig.
+     */
+    public static Map<String, Object> toJwk(SigningKey signingKey) {
+        return new LinkedHashMap<>(Jwks.builder()
+                .key((PublicKey) signingKey.verificationKey())
+                .id(signingKey.kid())
+                .algorithm(signingKey.algorithm().getId())
+                .publicKeyUse("sig")
+                .build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SecureDigestAlgorithm<Key, ?> algorithm(String id) {
+        SecureDigestAlgorithm<?, ?> algorithm = Jwts.SIG.get().get(id);
+        if (algorithm == null || !(HS256.equals(id) || ES256.equals(id) || EDDSA.equals(id))) {
+            throw new IllegalStateException(String.format("Unsupported JWT signing algorithm: %s", id));
+        }
+        return (SecureDigestAlgorithm<Key, ?>) algorithm;
+    }
+
+    private static String keyFactoryAlgorithm(String algorithm) {
+        return switch (algorithm) {
+            case ES256 -> "EC";
+            case EDDSA -> "EdDSA";
+            default -> throw new IllegalStateException(String.format("Unsupported JWT signing algorithm: %s", algorithm));
+        };
+    }
+
+    private static String kidOrDerived(String kid, Key key) {
+        if (kid != null && !kid.isBlank()) {
+            return kid;
+        }
+        return TokenHashUtils.sha256(Base64.getEncoder().encodeToString(key.getEncoded())).substring(0, 16);
+    }
+
+}
@@ -0,0 +1,232 @@
+package com.alkl1m.auth.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Счетчик событий по ключу в скользящем окне с ограниченной памятью.
+ * Окно приближается двумя соседними фиксированными окнами: счет предыдущего окна
+ * берется с весом, равным непрошедшей доле текущего окна.
+ * Ключи распределены по полосам со своей блокировкой; в каждой полосе хранится
+ * не больше заданного числа ключей, при переполнении вытесняется самый давно
+ * использованный ключ, не достигший лимита. Ключи на лимите не вытесняются,
+ * иначе поток новых ключей сбрасывал бы счетчик атакуемого ключа; поэтому граница
+ * мягкая: полоса может превысить ее на число ключей на лимите, каждый из которых
+ * стоил лимита событий и освобождается не позже чем через два окна.
+ *
+ * @author alkl1m
+ */
+public final class SlidingWindowCounter {
+
+    private final long windowMs;
+    private final int limit;
+    private final Stripe[] stripes;
+
+    public SlidingWindowCounter(long windowMs, int limit, int stripes, int maxKeysPerStripe) {
+        this.windowMs = windowMs;
+        this.limit = limit;
+        int stripeCount = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+    }
+
+    /**
+     * Учитывает событие по ключу.
+     *
+     * @param key ключ.
+     * @param now текущее время в мс.
+     * @return оценка числа событий в окне с учетом нового.
+     */
+    public int increment(String key, long now) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Window window = window(stripe, key, now);
+            window.current++;
+            return window.estimate(now, windowMs);
+        }
+    }
+
+    /**
+     * Учитывает событие по ключу, если лимит еще не достигнут.
+     * Проверка и учет выполняются атомарно, поэтому параллельные запросы
+     * не проходят сверх лимита.
+     *
+     * @param key ключ.
+     * @param now текущее время в мс.
+     * @return true, если событие учтено; false, если лимит достигнут.
+     */
+    public boolean tryAcquire(String key, long now) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Window window = window(stripe, key, now);
+            if (window.estimate(now, windowMs) >= limit) {
+                return false;
+            }
+            window.current++;
+            return true;
+        }
+    }
+
+    /**
+     * Возвращает событие, учтенное tryAcquire.
+     *
+     * @param key ключ.
+     * @param now текущее время в мс.
+     */
+    public void release(String key, long now) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Window window = stripe.get(key);
+            if (window == null) {
+                return;
+            }
+            window.roll(now, windowMs);
+            if (window.current > 0) {
+                window.current--;
+            } else if (window.previous > 0) {
+                window.previous--;
+            }
+        }
+    }
+
+    /**
+     * Возвращает оценку числа событий по ключу в окне, не создавая ключ.
+     *
+     * @param key ключ.
+     * @param now текущее время в мс.
+     * @return оценка числа событий в окне.
+     */
+    public int estimate(String key, long now) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Window window = stripe.get(key);
+            if (window == null) {
+                return 0;
+            }
+            window.roll(now, windowMs);
+            return window.estimate(now, windowMs);
+        }
+    }
+
+    /**
+     * Возвращает время до начала следующего фиксированного окна.
+     *
+     * @param now текущее время в мс.
+     * @return время в мс.
+     */
+    public long millisUntilNextWindow(long now) {
+        return windowMs - now % windowMs;
+    }
+
+    /**
+     * Сбрасывает счетчик ключа.
+     *
+     * @param key ключ.
+     * @return true, если ключ был учтен.
+     */
+    public boolean reset(String key) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.remove(key) != null;
+        }
+    }
+
+    /**
+     * Сбрасывает счетчики всех ключей.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Возвращает оценки по всем ключам с событиями в окне.
+     * Полосы обходятся по очереди, поэтому снимок не атомарен.
+     *
+     * @param now текущее время в мс.
+     * @return оценки числа событий по ключам.
+     */
+    public Map<String, Integer> snapshot(long now) {
+        Map<String, Integer> snapshot = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.entrySet().removeIf(entry -> {
+                    entry.getValue().roll(now, windowMs);
+                    return entry.getValue().estimate(now, windowMs) == 0;
+                });
+                stripe.forEach((key, window) -> snapshot.put(key, window.estimate(now, windowMs)));
+            }
+        }
+        return snapshot;
+    }
+
+    private Window window(Stripe stripe, String key, long now) {
+        Window window = stripe.get(key);
+        if (window == null) {
+            if (stripe.size() >= stripe.maxKeys) {
+                evict(stripe, now);
+            }
+            window = new Window();
+            stripe.put(key, window);
+        }
+        window.roll(now, windowMs);
+        return window;
+    }
+
+    private void evict(Stripe stripe, long now) {
+        Iterator<Window> iterator = stripe.values().iterator();
+        while (iterator.hasNext()) {
+            Window window = iterator.next();
+            window.roll(now, windowMs);
+            if (window.estimate(now, windowMs) < limit) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private Stripe stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Window> {
+
+        private final int maxKeys;
+
+        private Stripe(int maxKeys) {
+            super(16, 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+    }
+
+    private static final class Window {
+
+        private long start;
+        private int previous;
+        private int current;
+
+        private void roll(long now, long windowMs) {
+            long windowStart = now - now % windowMs;
+            if (windowStart == start) {
+                return;
+            }
+            previous = windowStart - start == windowMs ? current : 0;
+            current = 0;
+            start = windowStart;
+        }
+
+        private int estimate(long now, long windowMs) {
+            long remaining = windowMs - (now - start);
+            return (int) (previous * remaining / windowMs) + current;
+        }
+    }
+
+}
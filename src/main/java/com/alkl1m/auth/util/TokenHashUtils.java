@@ -0,0 +1,33 @@
+package com.alkl1m.auth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Утилита для получения дайджеста токенов, чтобы не хранить и не индексировать их в открытом виде.
+ *
+ * @author alkl1m
+ */
+public final class TokenHashUtils {
+
+    private TokenHashUtils() {
+    }
+
+    /**
+     * Считает SHA-256 от токена.
+     *
+     * @param token токен
+     * @return дайджест в виде hex строки из 64 символов
+     */
+    public static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+}
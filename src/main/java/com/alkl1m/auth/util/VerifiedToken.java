@@ -0,0 +1,42 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Проверенный JWT: принципал и claims, нужные для проверки отзыва и срока действия.
+ *
+ * @param userDetails принципал, восстановленный из claims.
+ * @param jti         идентификатор токена, может быть null.
+ * @param issuedAtMs  время выпуска токена в мс (см. issuedAtMs(Claims)).
+ * @param expiresAtMs время истечения токена.
+ * @param authTimeMs  время исходной аутентификации; для токенов без auth_time - время выпуска.
+ * @author alkl1m
+ */
+public record VerifiedToken(UserDetailsImpl userDetails, String jti, long issuedAtMs, long expiresAtMs,
+                            long authTimeMs) {
+
+    public static VerifiedToken of(UserDetailsImpl userDetails, Claims claims) {
+        long issuedAtMs = issuedAtMs(claims);
+        Long authTime = claims.get(JwtUtils.AUTH_TIME_CLAIM, Long.class);
+        return new VerifiedToken(userDetails, claims.getId(), issuedAtMs, toMillis(claims.getExpiration()),
+                authTime != null ? authTime * 1000 : issuedAtMs);
+    }
+
+    /**
+     * Возвращает время выпуска токена в мс из claim iat_ms, а для токенов без него - из iat.
+     *
+     * @param claims claims проверенного токена.
+     * @return время выпуска в мс или 0, если оно не указано.
+     */
+    public static long issuedAtMs(Claims claims) {
+        Long issuedAtMs = claims.get(JwtUtils.ISSUED_AT_MS_CLAIM, Long.class);
+        return issuedAtMs != null ? issuedAtMs : toMillis(claims.getIssuedAt());
+    }
+
+    private static long toMillis(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.alkl1m.auth.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограниченный по размеру кэш проверенных JWT.
+ * Ключ - SHA-256 от токена, значение - восстановленный из claims принципал вместе с jti и iat.
+ * Запись живет не дольше срока действия самого токена.
+ * Граница размера мягкая: очистку выполняет один поток, остальные в это время
+ * не ждут и продолжают добавлять записи, поэтому размер может ненадолго
+ * превысить maxSize на число одновременно пишущих потоков.
+ * При попадании подпись не проверяется повторно, поэтому при удалении ключа
+ * из связки кэш сбрасывается целиком (см. clear).
+ *
+ * @author alkl1m
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Getter
+    private final boolean enabled;
+    private final int maxSize;
+
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${application.security.jwt.cache.enabled:false}") boolean enabled,
+                              @Value("${application.security.jwt.cache.maxSize:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+
+        FunctionCounter.builder("auth.jwt.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("auth.jwt.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("auth.jwt.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("auth.jwt.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Возвращает ранее проверенный токен.
+     *
+     * @param token JWT токен.
+     * @return проверенный токен или null, если токена нет в кэше или срок его действия истек.
+     */
+    public VerifiedToken get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        String key = TokenHashUtils.sha256(token);
+        VerifiedToken cached = entries.get(key);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.expiresAtMs() <= System.currentTimeMillis()) {
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached;
+    }
+
+    /**
+     * Кладет проверенный токен в кэш до момента его истечения.
+     *
+     * @param token         JWT токен.
+     * @param verifiedToken проверенный токен с принципалом, восстановленным из claims.
+     */
+    public void put(String token, VerifiedToken verifiedToken) {
+        if (!enabled || verifiedToken.expiresAtMs() <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(TokenHashUtils.sha256(token), verifiedToken);
+    }
+
+    /**
+     * Удаляет все записи. Вызывается при выводе ключа подписи из связки,
+     * чтобы токены, подписанные им, снова проходили проверку подписи.
+     */
+    public void clear() {
+        int size = entries.size();
+        entries.clear();
+        evictions.add(size);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Удаляет истекшие записи, а если их недостаточно - произвольные записи,
+     * пока кэш не освободится на десятую часть. Очистку выполняет один поток,
+     * остальные ее не ждут; после очистки поток повторяет ее, если за это время
+     * кэш снова заполнился, поэтому превышение не накапливается.
+     */
+    private void evict() {
+        while (entries.size() >= maxSize && evictionLock.tryLock()) {
+            try {
+                long now = System.currentTimeMillis();
+                entries.entrySet().removeIf(entry -> {
+                    boolean expired = entry.getValue().expiresAtMs() <= now;
+                    if (expired) {
+                        evictions.increment();
+                    }
+                    return expired;
+                });
+
+                int target = maxSize - Math.max(1, maxSize / 10);
+                Iterator<String> iterator = entries.keySet().iterator();
+                while (entries.size() > target && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                    evictions.increment();
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+}
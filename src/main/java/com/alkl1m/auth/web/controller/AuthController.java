@@ -1,13 +1,18 @@
 package com.alkl1m.auth.web.controller;
 
-import com.alkl1m.auth.domain.entity.RefreshToken;
 import com.alkl1m.auth.domain.exception.TokenRefreshException;
+import com.alkl1m.auth.domain.projection.RotatedRefreshToken;
+import com.alkl1m.auth.service.LoginThrottleService;
+import com.alkl1m.auth.service.SignedRefreshTokenService;
+import com.alkl1m.auth.service.TokenRevocationService;
 import com.alkl1m.auth.service.UserService;
 import com.alkl1m.auth.service.impl.RefreshTokenServiceImpl;
 import com.alkl1m.auth.service.impl.UserDetailsImpl;
 import com.alkl1m.auth.util.JwtUtils;
+import com.alkl1m.auth.util.JwtVerification;
 import com.alkl1m.auth.web.payload.LoginRequest;
 import com.alkl1m.auth.web.payload.SignupRequest;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -19,6 +24,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -28,6 +34,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Optional;
+
 /**
  * Контроллер для обработки аутентификации пользователей.
  * Регистрация, вход в систему, обновление токена и выход из системы.
@@ -39,11 +47,16 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/auth")
 @Tag(name = "auth", description = "The Auth API")
 public class AuthController {
+    private static final int MAX_USER_AGENT_LENGTH = 512;
+
     private final AuthenticationManager authenticationManager;
     private final UserService userService;
     private final PasswordEncoder encoder;
     private final RefreshTokenServiceImpl refreshTokenService;
     private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
+    private final SignedRefreshTokenService signedRefreshTokenService;
+    private final LoginThrottleService loginThrottleService;
 
     /**
      * Регистрация нового пользователя.
@@ -69,8 +82,13 @@ public class AuthController {
 
     /**
      * Аутентификация пользователя и получение JWT токенов.
+     * При превышении лимита неудачных попыток по логину или адресу
+     * запрос отклоняется с кодом 429 до проверки пароля.
+     * Адрес клиента берется из X-Forwarded-For, только если запрос пришел
+     * от доверенного прокси (server.tomcat.remoteip.internal-proxies).
      *
      * @param loginRequest объект, содержащий данные для входа пользователя
+     * @param request      HTTP-запрос, из которого берутся данные устройства для сессии
      * @return ResponseEntity с заголовками, содержащими JWT и токен обновления,
      * а также сообщением об успешном входе
      */
@@ -81,9 +99,21 @@ public class AuthController {
                     description = "Пользователь успешно аутентифицирован")
     })
     @PostMapping("/login")
-    public ResponseEntity<String> loginUser(@Valid @RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager
-                .authenticate(new UsernamePasswordAuthenticationToken(loginRequest.login(), loginRequest.password()));
+    public ResponseEntity<String> loginUser(@Valid @RequestBody LoginRequest loginRequest,
+                                            HttpServletRequest request) {
+        String clientIp = request.getRemoteAddr();
+        loginThrottleService.checkAllowed(loginRequest.login(), clientIp);
+        Authentication authentication;
+        try {
+            authentication = authenticationManager
+                    .authenticate(new UsernamePasswordAuthenticationToken(loginRequest.login(), loginRequest.password()));
+        } catch (RuntimeException e) {
+            if (!(e instanceof BadCredentialsException)) {
+                loginThrottleService.release(loginRequest.login(), clientIp);
+            }
+            throw e;
+        }
+        loginThrottleService.recordSuccess(loginRequest.login(), clientIp);
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
 
@@ -91,9 +121,12 @@ public class AuthController {
 
         ResponseCookie jwtCookie = jwtUtils.generateJwtCookie(userDetails);
 
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(userDetails.getId());
+        String refreshToken = signedRefreshTokenService.isEnabled()
+                ? signedRefreshTokenService.issue(userDetails)
+                : refreshTokenService.createRefreshToken(userDetails.getId(),
+                userAgent(request), clientIp).getToken();
 
-        ResponseCookie jwtRefreshCookie = jwtUtils.generateRefreshJwtCookie(refreshToken.getToken());
+        ResponseCookie jwtRefreshCookie = jwtUtils.generateRefreshJwtCookie(refreshToken);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
@@ -103,6 +136,8 @@ public class AuthController {
 
     /**
      * Обновление JWT токена на основе refreshToken.
+     * При включенной ротации refresh токен обменивается на новый одним запросом к бд.
+     * Подписанный refresh токен проверяется локально и обменивается на токен следующего поколения.
      *
      * @param request HTTP-запрос, содержащий токен обновления в cookies
      * @return ResponseEntity с заголовком, содержащим новый JWT и сообщением об успешном обновлении токена
@@ -117,11 +152,27 @@ public class AuthController {
     public ResponseEntity<String> refreshToken(HttpServletRequest request) {
         String refreshToken = jwtUtils.getJwtRefreshFromCookies(request);
         if ((refreshToken != null) && (!refreshToken.isEmpty())) {
+            if (signedRefreshTokenService.isEnabled() || refreshTokenService.isRefreshRotation()) {
+                Optional<RotatedRefreshToken> rotation = signedRefreshTokenService.isEnabled()
+                        ? signedRefreshTokenService.rotate(refreshToken)
+                        : refreshTokenService.rotate(refreshToken);
+                return rotation
+                        .map(rotated -> {
+                            ResponseCookie jwtCookie = jwtUtils.generateJwtCookie(rotated.claims());
+                            ResponseCookie jwtRefreshCookie = jwtUtils.generateRefreshJwtCookie(rotated.token());
+                            return ResponseEntity.ok()
+                                    .header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
+                                    .header(HttpHeaders.SET_COOKIE, jwtRefreshCookie.toString())
+                                    .body("Token is refreshed successfully!");
+                        })
+                        .orElseThrow(() -> new TokenRefreshException(refreshToken,
+                                "Refresh token is not id database!"));
+            }
             return refreshTokenService.findByToken(refreshToken)
                     .map(refreshTokenService::verifyExpiration)
-                    .map(RefreshToken::getUser)
-                    .map(user -> {
-                        ResponseCookie jwtCookie = jwtUtils.generateJwtCookie(user);
+                    .flatMap(refreshTokenService::findTokenClaims)
+                    .map(claims -> {
+                        ResponseCookie jwtCookie = jwtUtils.generateJwtCookie(claims);
                         return ResponseEntity.ok()
                                 .header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
                                 .body("Token is refreshed successfully!");
@@ -133,8 +184,10 @@ public class AuthController {
     }
 
     /**
-     * Выход пользователя из системы и удаление токенов.
+     * Выход пользователя из системы на текущем устройстве: удаление его refresh токена
+     * и отзыв текущего access токена. Сессии на других устройствах остаются.
      *
+     * @param request HTTP-запрос, содержащий JWT и токен обновления в cookies
      * @return ResponseEntity с заголовками, содержащими очищенные JWT и токен обновления,
      * а также сообщением о выходе из системы
      */
@@ -145,15 +198,57 @@ public class AuthController {
                     description = "Пользователь успешно вышел из системы")
     })
     @PostMapping("/logout")
-    public ResponseEntity<String> logout() {
+    public ResponseEntity<String> logout(HttpServletRequest request) {
+        String refreshToken = jwtUtils.getJwtRefreshFromCookies(request);
+        if (refreshToken != null && !refreshToken.isEmpty()) {
+            if (signedRefreshTokenService.isEnabled()) {
+                signedRefreshTokenService.revoke(refreshToken);
+            } else {
+                refreshTokenService.deleteByToken(refreshToken);
+            }
+        }
+        revokeCurrentToken(request);
+        return signedOut();
+    }
+
+    /**
+     * Выход пользователя из системы на всех устройствах: удаление всех его refresh токенов
+     * и отзыв всех выпущенных ему access токенов.
+     *
+     * @return ResponseEntity с заголовками, содержащими очищенные JWT и токен обновления,
+     * а также сообщением о выходе из системы
+     */
+    @Operation(summary = "Выход пользователя из системы на всех устройствах", tags = "auth")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Пользователь успешно вышел из системы на всех устройствах")
+    })
+    @PostMapping("/logout-all")
+    public ResponseEntity<String> logoutAll() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null) {
-            Object principal = authentication.getPrincipal();
-            if (principal instanceof UserDetailsImpl userDetails) {
-                Long userId = userDetails.getId();
-                refreshTokenService.deleteByUserId(userId);
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            refreshTokenService.deleteByUserId(userDetails.getId());
+            if (signedRefreshTokenService.isEnabled()) {
+                signedRefreshTokenService.revokeAllForUser(userDetails.getId());
             }
+            tokenRevocationService.revokeAllForUser(userDetails.getId());
         }
+        return signedOut();
+    }
+
+    private void revokeCurrentToken(HttpServletRequest request) {
+        String jwt = jwtUtils.getJwtFromCookies(request);
+        if (jwt != null) {
+            JwtVerification verification = jwtUtils.verifyJwtToken(jwt);
+            if (verification.isValid()) {
+                Claims claims = verification.claims();
+                tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            }
+        }
+    }
+
+    private ResponseEntity<String> signedOut() {
         ResponseCookie jwtCookie = jwtUtils.getCleanJwtCookie();
         ResponseCookie jwtRefreshCookie = jwtUtils.getCleanJwtRefreshToken();
         return ResponseEntity.ok()
@@ -161,4 +256,11 @@ public class AuthController {
                 .header(HttpHeaders.SET_COOKIE, jwtRefreshCookie.toString())
                 .body("You've been signed out!");
     }
+
+    private static String userAgent(HttpServletRequest request) {
+        String userAgent = request.getHeader(HttpHeaders.USER_AGENT);
+        return userAgent != null && userAgent.length() > MAX_USER_AGENT_LENGTH
+                ? userAgent.substring(0, MAX_USER_AGENT_LENGTH)
+                : userAgent;
+    }
 }
@@ -1,10 +1,14 @@
 package com.alkl1m.auth.web.controller;
 
 import com.alkl1m.auth.domain.exception.ExceptionBody;
+import com.alkl1m.auth.domain.exception.LoginThrottledException;
+import com.alkl1m.auth.domain.exception.PasswordHashingOverloadedException;
 import com.alkl1m.auth.domain.exception.UserAlreadyExistsException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -123,4 +127,34 @@ public class ControllerAdvice {
         return new ExceptionBody("User already exists.");
     }
 
+    /**
+     * Обработчик исключения PasswordHashingOverloadedException.
+     *
+     * @param e исключение, связанное с перегрузкой пула хеширования паролей
+     * @return ответ 503 с заголовком Retry-After
+     */
+    @ExceptionHandler(PasswordHashingOverloadedException.class)
+    public ResponseEntity<ExceptionBody> handlePasswordHashingOverloaded(
+            final PasswordHashingOverloadedException e
+    ) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ExceptionBody("Service is overloaded, retry later."));
+    }
+
+    /**
+     * Обработчик исключения LoginThrottledException.
+     *
+     * @param e исключение, связанное с превышением лимита неудачных попыток входа
+     * @return ответ 429 с заголовком Retry-After
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<ExceptionBody> handleLoginThrottled(
+            final LoginThrottledException e
+    ) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ExceptionBody("Too many failed login attempts, retry later."));
+    }
+
 }
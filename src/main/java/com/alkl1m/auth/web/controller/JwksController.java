@@ -0,0 +1,59 @@
+package com.alkl1m.auth.web.controller;
+
+import com.alkl1m.auth.service.SigningKeyService;
+import com.alkl1m.auth.util.SigningKeys;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Контроллер для публикации публичных ключей подписи JWT в формате JWKS.
+ * Позволяет другим сервисам проверять токены локально, без общего секрета.
+ *
+ * @author alkl1m
+ */
+@RestController
+@Tag(name = "jwks", description = "The Auth API")
+public class JwksController {
+    private final SigningKeyService signingKeyService;
+    private final Duration maxAge;
+
+    public JwksController(SigningKeyService signingKeyService,
+                          @Value("${application.security.jwt.keys.jwksMaxAgeSeconds:300}") long maxAgeSeconds) {
+        this.signingKeyService = signingKeyService;
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+    }
+
+    /**
+     * Возвращает публичные ключи подписи, включая ожидающие активации.
+     * В режиме HS256 список ключей пуст.
+     *
+     * @return ResponseEntity с JWK Set и заголовком Cache-Control
+     */
+    @Operation(summary = "Получение публичных ключей подписи JWT", tags = "jwks")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Успешно получил публичные ключи")
+    })
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> getJwks() {
+        List<Map<String, Object>> keys = signingKeyService.getPublishedKeys().stream()
+                .map(SigningKeys::toJwk)
+                .toList();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .body(Map.of("keys", keys));
+    }
+
+}
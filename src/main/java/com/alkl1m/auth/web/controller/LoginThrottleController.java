@@ -0,0 +1,92 @@
+package com.alkl1m.auth.web.controller;
+
+import com.alkl1m.auth.domain.enums.EThrottleScope;
+import com.alkl1m.auth.service.LoginThrottleService;
+import com.alkl1m.auth.web.payload.LoginThrottleResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Контроллер для просмотра и сброса счетчиков неудачных попыток входа.
+ *
+ * @author alkl1m
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/login-throttle")
+@Tag(name = "login-throttle", description = "The Auth API")
+public class LoginThrottleController {
+    private final LoginThrottleService loginThrottleService;
+
+    /**
+     * Возвращает логины и адреса с неудачными попытками входа в текущем окне.
+     *
+     * @return ResponseEntity со списком счетчиков
+     */
+    @Operation(summary = "Получение счетчиков неудачных попыток входа", tags = "login-throttle")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Успешно получил счетчики")
+    })
+    @GetMapping
+    public ResponseEntity<List<LoginThrottleResponse>> getFailures() {
+        List<LoginThrottleResponse> failures = new ArrayList<>();
+        for (EThrottleScope scope : EThrottleScope.values()) {
+            loginThrottleService.getFailures(scope)
+                    .forEach((key, count) -> failures.add(new LoginThrottleResponse(scope, key, count)));
+        }
+        return ResponseEntity.ok(failures);
+    }
+
+    /**
+     * Сбрасывает счетчик одного логина или адреса.
+     *
+     * @param scope вид ключа
+     * @param key   логин или адрес
+     * @return ResponseEntity с кодом 204, если счетчик сброшен, или 404, если он не найден
+     */
+    @Operation(summary = "Сброс счетчика неудачных попыток входа", tags = "login-throttle")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Счетчик сброшен")
+    })
+    @DeleteMapping("/{scope}")
+    public ResponseEntity<Void> clear(@PathVariable EThrottleScope scope, @RequestParam String key) {
+        return loginThrottleService.clear(scope, key)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Сбрасывает все счетчики.
+     *
+     * @return ResponseEntity с кодом 204
+     */
+    @Operation(summary = "Сброс всех счетчиков неудачных попыток входа", tags = "login-throttle")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Счетчики сброшены")
+    })
+    @DeleteMapping
+    public ResponseEntity<Void> clearAll() {
+        loginThrottleService.clearAll();
+        return ResponseEntity.noContent().build();
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.alkl1m.auth.web.controller;
+
+import com.alkl1m.auth.service.RefreshTokenService;
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
+import com.alkl1m.auth.web.payload.SessionResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Контроллер для управления сессиями текущего пользователя на разных устройствах.
+ *
+ * @author alkl1m
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/sessions")
+@Tag(name = "sessions", description = "The Auth API")
+public class SessionController {
+    private final RefreshTokenService refreshTokenService;
+
+    /**
+     * Возвращает активные сессии текущего пользователя.
+     *
+     * @param userDetails текущий пользователь
+     * @return ResponseEntity со списком сессий, начиная с самой новой
+     */
+    @Operation(summary = "Получение сессий текущего пользователя", tags = "sessions")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Успешно получил сессии пользователя")
+    })
+    @GetMapping
+    public ResponseEntity<List<SessionResponse>> getSessions(@AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return ResponseEntity.ok(refreshTokenService.findSessions(userDetails.getId()).stream()
+                .map(SessionResponse::from)
+                .toList());
+    }
+
+    /**
+     * Завершает сессию текущего пользователя на одном устройстве.
+     *
+     * @param id          идентификатор сессии
+     * @param userDetails текущий пользователь
+     * @return ResponseEntity с кодом 204, если сессия удалена, или 404, если она не найдена
+     */
+    @Operation(summary = "Завершение сессии текущего пользователя", tags = "sessions")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Сессия завершена")
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSession(@PathVariable Long id,
+                                              @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return refreshTokenService.deleteSession(userDetails.getId(), id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.alkl1m.auth.web.controller;
+
+import com.alkl1m.auth.service.SigningKeyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Контроллер для управления ключами подписи JWT.
+ *
+ * @author alkl1m
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/keys")
+@Tag(name = "keys", description = "The Auth API")
+public class SigningKeyController {
+    private final SigningKeyService signingKeyService;
+
+    /**
+     * Выпускает новый ключ подписи. Ключ сразу публикуется в JWKS, а подписывать
+     * начинает после истечения кэша JWKS у проверяющих. Токены, подписанные
+     * предыдущими ключами, остаются валидными до истечения их срока действия.
+     *
+     * @return ResponseEntity с kid нового ключа
+     */
+    @Operation(summary = "Ротация ключа подписи JWT", tags = "keys")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Успешно выпустил новый ключ подписи")
+    })
+    @PostMapping("/rotate")
+    public ResponseEntity<String> rotate() {
+        return ResponseEntity.ok(signingKeyService.rotate().kid());
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.alkl1m.auth.web.payload;
+
+import com.alkl1m.auth.domain.enums.EThrottleScope;
+
+public record LoginThrottleResponse(
+        EThrottleScope scope,
+        String key,
+        int failures
+) {
+}
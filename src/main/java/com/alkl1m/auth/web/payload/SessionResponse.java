@@ -0,0 +1,24 @@
+package com.alkl1m.auth.web.payload;
+
+import com.alkl1m.auth.domain.entity.RefreshToken;
+
+import java.time.Instant;
+
+public record SessionResponse(
+        Long id,
+        String userAgent,
+        String clientIp,
+        Instant createdAt,
+        Instant expiryDate
+) {
+
+    public static SessionResponse from(RefreshToken refreshToken) {
+        return new SessionResponse(
+                refreshToken.getId(),
+                refreshToken.getUserAgent(),
+                refreshToken.getClientIp(),
+                refreshToken.getCreatedAt(),
+                refreshToken.getExpiryDate());
+    }
+
+}
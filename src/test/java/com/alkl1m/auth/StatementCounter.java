@@ -0,0 +1,27 @@
+package com.alkl1m.auth;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL запросы, которые Hibernate выполняет в текущем потоке.
+ * Фоновые задачи (обновление ключей, отзывов, очистка) идут в других потоках и не учитываются.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Integer> COUNT = ThreadLocal.withInitial(() -> 0);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.set(COUNT.get() + 1);
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.set(0);
+    }
+
+    public static int count() {
+        return COUNT.get();
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.alkl1m.auth.filter;
+
+import com.alkl1m.auth.service.TokenRevocationService;
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
+import com.alkl1m.auth.service.impl.UserDetailsServiceImpl;
+import com.alkl1m.auth.util.JwtUtils;
+import com.alkl1m.auth.util.JwtVerification;
+import com.alkl1m.auth.util.SecurityEventLogger;
+import com.alkl1m.auth.util.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AuthTokenFilterTest {
+
+    private final JwtUtils jwtUtils = mock(JwtUtils.class);
+    private final UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+    private final UserDetailsImpl userDetails = new UserDetailsImpl(1L, "login", null, null, List.of());
+
+    private AuthTokenFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AuthTokenFilter(jwtUtils, userDetailsService,
+                new VerifiedTokenCache(false, 0, new SimpleMeterRegistry()),
+                new SecurityEventLogger(1000, 5, new SimpleMeterRegistry()),
+                mock(TokenRevocationService.class));
+        ReflectionTestUtils.setField(filter, "stateless", true);
+        ReflectionTestUtils.setField(filter, "slidingWindowMs", 60000L);
+        ReflectionTestUtils.setField(filter, "refreshExpirationMs", 86400000L);
+        when(jwtUtils.getJwtFromCookies(any())).thenReturn("token");
+        when(jwtUtils.getUserDetailsFromClaims(any())).thenReturn(userDetails);
+        when(jwtUtils.generateJwtCookie(eq(userDetails), anyLong())).thenReturn(ResponseCookie.from("jwt", "reissued").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testDoFilter_withStatelessMode_buildsPrincipalFromClaims() throws Exception {
+        when(jwtUtils.verifyJwtToken("token")).thenReturn(JwtVerification.valid(
+                claimsExpiringInMs(600000, System.currentTimeMillis() / 1000)));
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void testDoFilter_withStatelessDisabled_loadsUserFromDatabase() throws Exception {
+        ReflectionTestUtils.setField(filter, "stateless", false);
+        UserDetailsImpl loaded = new UserDetailsImpl(1L, "login", "email@example.com", "password", List.of());
+        when(userDetailsService.loadUserByUsername("login")).thenReturn(loaded);
+        when(jwtUtils.verifyJwtToken("token")).thenReturn(JwtVerification.valid(
+                claimsExpiringInMs(600000, System.currentTimeMillis() / 1000)));
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(loaded, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(jwtUtils, never()).getUserDetailsFromClaims(any());
+    }
+
+    @Test
+    void testDoFilter_withTokenInsideSlidingWindow_reissuesCookie() throws Exception {
+        long authTime = System.currentTimeMillis() / 1000 - 3600;
+        when(jwtUtils.verifyJwtToken("token")).thenReturn(JwtVerification.valid(claimsExpiringInMs(30000, authTime)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain());
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals("jwt=reissued", response.getHeader(HttpHeaders.SET_COOKIE));
+        verify(jwtUtils).generateJwtCookie(userDetails, authTime * 1000);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void testDoFilter_afterRefreshExpirationSinceAuthTime_keepsCookie() throws Exception {
+        long authTime = System.currentTimeMillis() / 1000 - 86400;
+        when(jwtUtils.verifyJwtToken("token")).thenReturn(JwtVerification.valid(claimsExpiringInMs(30000, authTime)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain());
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+    }
+
+    @Test
+    void testDoFilter_withTokenOutsideSlidingWindow_keepsCookie() throws Exception {
+        when(jwtUtils.verifyJwtToken("token")).thenReturn(JwtVerification.valid(
+                claimsExpiringInMs(600000, System.currentTimeMillis() / 1000)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain());
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+    }
+
+    private static Claims claimsExpiringInMs(long ms, long authTime) {
+        return Jwts.claims()
+                .subject("login")
+                .add("id", 1L)
+                .add(JwtUtils.AUTH_TIME_CLAIM, authTime)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + ms))
+                .build();
+    }
+
+}
@@ -3,6 +3,8 @@ package com.alkl1m.auth.repository;
 import com.alkl1m.auth.TestBeans;
 import com.alkl1m.auth.domain.entity.RefreshToken;
 import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.domain.projection.CreatedSession;
+import com.alkl1m.auth.util.TokenHashUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +15,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -57,8 +60,44 @@ class RefreshTokenRepositoryTest {
     }
 
     @Test
-    void testDeleteByUser_withValidPayload_returnsNoTokenInDb() {
-        refreshTokenRepository.deleteByUser(user);
+    void testFindByToken_withSavedToken_findsItByDigest() {
+        refreshTokenRepository.save(newRefreshToken);
+        entityManager.flush();
+        entityManager.clear();
+
+        RefreshToken retrieved = refreshTokenRepository.findByToken(newRefreshToken.getToken()).get();
+
+        assertEquals(TokenHashUtils.sha256(newRefreshToken.getToken()), retrieved.getTokenHash());
+        assertEquals(newRefreshToken.getToken(), retrieved.getToken());
+    }
+
+    @Test
+    void testCreateSession_withTooManySessions_insertsAndEvictsOldest() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 3; i++) {
+            RefreshToken session = new RefreshToken(null, user, "token-" + i, now.plusMillis(864000));
+            session.setCreatedAt(now.plusSeconds(i));
+            refreshTokenRepository.save(session);
+        }
+        entityManager.flush();
+
+        CreatedSession created = refreshTokenRepository.createSession(user.getId(), TokenHashUtils.sha256("token-3"),
+                now.plusMillis(864000), "Mozilla/5.0", "127.0.0.1", now.plusSeconds(3), 1);
+        entityManager.clear();
+
+        assertNotNull(created.getId());
+        assertThat(created.getEvictedHashes()).containsExactlyInAnyOrder(
+                TokenHashUtils.sha256("token-0"), TokenHashUtils.sha256("token-1"));
+        assertEquals(List.of(TokenHashUtils.sha256("token-3"), TokenHashUtils.sha256("token-2")),
+                refreshTokenRepository.findSessions(user.getId()).stream()
+                        .map(RefreshToken::getTokenHash)
+                        .toList());
+    }
+
+    @Test
+    void testDeleteByUserId_withValidPayload_returnsNoTokenInDb() {
+        refreshTokenRepository.deleteByUserId(user.getId());
+        entityManager.clear();
         assertThat(entityManager.find(RefreshToken.class, newRefreshToken.getId())).isNull();
     }
 
@@ -0,0 +1,186 @@
+package com.alkl1m.auth.repository.impl;
+
+import com.alkl1m.auth.domain.entity.RefreshToken;
+import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.repository.UserRepository;
+import com.alkl1m.auth.util.TokenHashUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WriteBehindRefreshTokenStoreTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final JpaRefreshTokenStore jpaStore = mock(JpaRefreshTokenStore.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ResultSet lockResult = mock(ResultSet.class);
+
+    private final User user = new User(1L, "login", "email@example.com", "password", new HashSet<>());
+    private WriteBehindRefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(lockResult);
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(true);
+        store = newStore();
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void testFindByToken_withSavedToken_servesFromMemoryAndFlushesInBatch() {
+        store.save(new RefreshToken(null, user, "token", Instant.now().plusSeconds(60)));
+
+        RefreshToken found = store.findByToken("token").get();
+
+        assertSame(user, found.getUser());
+        verifyNoInteractions(jpaStore);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+
+        store.flush();
+
+        assertEquals(1, insertedBatch().size());
+    }
+
+    @Test
+    void testFlush_withTokenDeletedBeforeFlush_writesNothing() {
+        store.save(new RefreshToken(null, user, "token", Instant.now().plusSeconds(60)));
+        store.deleteByTokenHash(TokenHashUtils.sha256("token"));
+
+        store.flush();
+
+        assertTrue(store.findByToken("token").isEmpty());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testInit_withUnflushedJournal_replaysOperations() throws Exception {
+        store.save(new RefreshToken(null, user, "token", Instant.now().plusSeconds(60)));
+
+        newStore();
+
+        assertEquals(1, insertedBatch().size());
+    }
+
+    @Test
+    void testRotate_withReusedToken_returnsEmpty() {
+        TokenClaims claims = mock(TokenClaims.class);
+        when(userRepository.findTokenClaimsById(user.getId())).thenReturn(Optional.of(claims));
+        store.save(new RefreshToken(null, user, "token", Instant.now().plusSeconds(60)));
+        Instant now = Instant.now();
+
+        Optional<TokenClaims> rotated = store.rotate(TokenHashUtils.sha256("token"), TokenHashUtils.sha256("successor"),
+                now.plusSeconds(60), now);
+        Optional<TokenClaims> reused = store.rotate(TokenHashUtils.sha256("token"), TokenHashUtils.sha256("other"),
+                now.plusSeconds(60), now);
+
+        assertSame(claims, rotated.get());
+        assertFalse(reused.isPresent());
+        assertTrue(store.findByToken("successor").isPresent());
+        verifyNoInteractions(jpaStore);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeleteByUserId_afterFailedFlush_deletesUserAfterSealedInserts() {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT"), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(new int[0][]);
+        store.save(new RefreshToken(null, user, "sealed", Instant.now().plusSeconds(60)));
+        store.flush();
+        store.save(new RefreshToken(null, user, "pending", Instant.now().plusSeconds(60)));
+
+        int removed = store.deleteByUserId(user.getId());
+
+        assertEquals(2, removed);
+        assertTrue(store.findByToken("sealed").isEmpty());
+        assertTrue(store.findByToken("pending").isEmpty());
+        verifyNoInteractions(jpaStore);
+
+        store.flush();
+
+        ArgumentCaptor<Collection<Object>> inserted = ArgumentCaptor.forClass(Collection.class);
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT"), inserted.capture(), eq(500),
+                any(ParameterizedPreparedStatementSetter.class));
+        inOrder.verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM refresh_token WHERE user_id"),
+                any(Collection.class), eq(500), any(ParameterizedPreparedStatementSetter.class));
+        inserted.getAllValues().forEach(batch -> assertEquals(1, batch.size()));
+    }
+
+    @Test
+    void testInit_withLockHeldByAnotherNode_refusesToStart() throws Exception {
+        when(lockResult.getBoolean(1)).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, this::newStore);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> insertedBatch() {
+        ArgumentCaptor<Collection<Object>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT"), captor.capture(), eq(500),
+                any(ParameterizedPreparedStatementSetter.class));
+        return captor.getValue();
+    }
+
+    private WriteBehindRefreshTokenStore newStore() throws Exception {
+        WriteBehindRefreshTokenStore newStore = new WriteBehindRefreshTokenStore(jpaStore, userRepository,
+                jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(newStore, "batchSize", 500);
+        ReflectionTestUtils.setField(newStore, "maxPending", 10000);
+        ReflectionTestUtils.setField(newStore, "journalDir", journalDir.toString());
+        newStore.init();
+        return newStore;
+    }
+
+}
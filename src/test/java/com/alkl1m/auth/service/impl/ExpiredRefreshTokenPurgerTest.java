@@ -0,0 +1,64 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.repository.RefreshTokenFamilyRepository;
+import com.alkl1m.auth.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiredRefreshTokenPurgerTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ExpiredRefreshTokenPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(purger, "batchSize", 10);
+        ReflectionTestUtils.setField(purger, "maxBatchesPerRun", 3);
+        ReflectionTestUtils.setField(purger, "pauseMs", 0L);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void testPurge_withPartialLastBatch_stopsAfterIt() {
+        when(refreshTokenRepository.deleteExpiredBatch(any(Instant.class), eq(10))).thenReturn(10, 4);
+
+        assertEquals(14, purger.purge());
+        verify(refreshTokenRepository, times(2)).deleteExpiredBatch(any(Instant.class), eq(10));
+    }
+
+    @Test
+    void testPurge_withManyExpiredTokens_stopsAtBatchLimit() {
+        when(refreshTokenRepository.deleteExpiredBatch(any(Instant.class), eq(10))).thenReturn(10);
+
+        assertEquals(30, purger.purge());
+        verify(refreshTokenRepository, times(3)).deleteExpiredBatch(any(Instant.class), eq(10));
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.enums.EThrottleScope;
+import com.alkl1m.auth.domain.exception.LoginThrottledException;
+import com.alkl1m.auth.util.SecurityEventLogger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+class LoginThrottleServiceImplTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginThrottleServiceImpl loginThrottleService = new LoginThrottleServiceImpl(
+            true, 60000, 3, 5, 4, 16, new SecurityEventLogger(1000, 5, meterRegistry), meterRegistry);
+
+    @Test
+    void testCheckAllowed_afterLoginLimit_throwsException() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottleService.checkAllowed("login", "10.0.0.1");
+        }
+
+        LoginThrottledException e = assertThrows(LoginThrottledException.class,
+                () -> loginThrottleService.checkAllowed("login", "10.0.0.2"));
+
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("auth.login.throttled").tag("scope", "LOGIN").counter().count(), 0.0);
+        loginThrottleService.checkAllowed("other", "10.0.0.2");
+    }
+
+    @Test
+    void testCheckAllowed_afterAddressLimit_throwsException() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottleService.checkAllowed("login" + i, "10.0.0.1");
+        }
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottleService.checkAllowed("new", "10.0.0.1"));
+        assertFalse(loginThrottleService.getFailures(EThrottleScope.LOGIN).containsKey("new"));
+    }
+
+    @Test
+    void testRelease_afterInterruptedAttempt_returnsSlots() {
+        loginThrottleService.checkAllowed("login", "10.0.0.1");
+        loginThrottleService.release("login", "10.0.0.1");
+
+        assertEquals(Map.of(), loginThrottleService.getFailures(EThrottleScope.LOGIN));
+        assertEquals(Map.of(), loginThrottleService.getFailures(EThrottleScope.ADDRESS));
+    }
+
+    @Test
+    void testRecordSuccess_resetsLoginAndReturnsAddressSlot() {
+        loginThrottleService.checkAllowed("login", "10.0.0.1");
+        loginThrottleService.checkAllowed("login", "10.0.0.1");
+        loginThrottleService.recordSuccess("login", "10.0.0.1");
+
+        assertEquals(Map.of(), loginThrottleService.getFailures(EThrottleScope.LOGIN));
+        assertEquals(Map.of("10.0.0.1", 1), loginThrottleService.getFailures(EThrottleScope.ADDRESS));
+
+        loginThrottleService.clearAll();
+
+        assertEquals(Map.of(), loginThrottleService.getFailures(EThrottleScope.ADDRESS));
+    }
+
+}
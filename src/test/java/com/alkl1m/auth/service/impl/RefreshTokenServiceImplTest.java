@@ -3,8 +3,11 @@ package com.alkl1m.auth.service.impl;
 import com.alkl1m.auth.domain.entity.RefreshToken;
 import com.alkl1m.auth.domain.entity.User;
 import com.alkl1m.auth.domain.exception.TokenRefreshException;
-import com.alkl1m.auth.repository.RefreshTokenRepository;
+import com.alkl1m.auth.domain.projection.RotatedRefreshToken;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.repository.RefreshTokenStore;
 import com.alkl1m.auth.repository.UserRepository;
+import com.alkl1m.auth.util.TokenHashUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,18 +18,22 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class RefreshTokenServiceImplTest {
 
     @Mock
-    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenStore refreshTokenStore;
     @Mock
     private UserRepository userRepository;
 
@@ -52,26 +59,79 @@ class RefreshTokenServiceImplTest {
 
     @Test
     void testCreateRefreshToken_withUserExistsAndRefreshTokenIsValid_returnNewToken() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(refreshTokenRepository.save(any(RefreshToken.class))).thenReturn(refreshToken);
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(refreshTokenStore.createSession(any(RefreshToken.class), anyInt())).thenReturn(List.of());
         RefreshToken result = refreshTokenService.createRefreshToken(user.getId());
         assertEquals(user, result.getUser());
         assertNotNull(result.getToken());
     }
 
+    @Test
+    void testCreateRefreshToken_withSessionLimit_evictsOldestSessionsFirst() {
+        refreshTokenService.setMaxSessions(3);
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(refreshTokenStore.createSession(any(RefreshToken.class), eq(2))).thenReturn(List.of("evicted"));
+
+        RefreshToken result = refreshTokenService.createRefreshToken(user.getId(), "Mozilla/5.0", "127.0.0.1");
+
+        verify(refreshTokenStore).createSession(result, 2);
+        assertEquals("Mozilla/5.0", result.getUserAgent());
+        assertEquals("127.0.0.1", result.getClientIp());
+        assertNotNull(result.getCreatedAt());
+    }
+
+    @Test
+    void testDeleteByUserId_deletesByIdWithoutLoadingUser() {
+        refreshTokenService.deleteByUserId(user.getId());
+
+        verify(refreshTokenStore).deleteByUserId(user.getId());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void testFindTokenClaims_readsProjectionInsteadOfUser() {
+        TokenClaims claims = mock(TokenClaims.class);
+        when(userRepository.findTokenClaimsById(user.getId())).thenReturn(Optional.of(claims));
+
+        assertSame(claims, refreshTokenService.findTokenClaims(refreshToken).get());
+        verify(userRepository, never()).findById(any());
+    }
+
     @Test
     void testVerifyExpiration_withExpiredTokenThrowsTokenRefreshException_verifyExpiration() {
         assertThrows(TokenRefreshException.class, () -> {
             refreshTokenService.verifyExpiration(expiredToken);
         });
-        verify(refreshTokenRepository, times(1)).delete(expiredToken);
+        verify(refreshTokenStore, times(1)).delete(expiredToken);
     }
 
     @Test
     void testVerifyExpiration_withValidToken_ReturnsToken() {
         RefreshToken result = refreshTokenService.verifyExpiration(refreshToken);
         assertEquals(refreshToken, result);
-        verify(refreshTokenRepository, never()).delete(refreshToken);
+        verify(refreshTokenStore, never()).delete(refreshToken);
+    }
+
+    @Test
+    void testRotate_withValidToken_returnsSuccessorAndClaims() {
+        TokenClaims claims = mock(TokenClaims.class);
+        when(refreshTokenStore.rotate(eq(TokenHashUtils.sha256("old")), anyString(), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.of(claims));
+
+        RotatedRefreshToken rotated = refreshTokenService.rotate("old").get();
+
+        assertSame(claims, rotated.claims());
+        assertNotEquals("old", rotated.token());
+        verify(refreshTokenStore).rotate(eq(TokenHashUtils.sha256("old")), eq(TokenHashUtils.sha256(rotated.token())),
+                any(Instant.class), any(Instant.class));
+    }
+
+    @Test
+    void testRotate_withConsumedToken_returnsEmpty() {
+        when(refreshTokenStore.rotate(anyString(), anyString(), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.empty());
+
+        assertTrue(refreshTokenService.rotate("old").isEmpty());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.entity.RefreshTokenFamily;
+import com.alkl1m.auth.domain.enums.ESecurityEvent;
+import com.alkl1m.auth.domain.projection.RotatedRefreshToken;
+import com.alkl1m.auth.domain.projection.TokenClaims;
+import com.alkl1m.auth.repository.RefreshTokenFamilyRepository;
+import com.alkl1m.auth.service.SigningKeyService;
+import com.alkl1m.auth.util.SecurityEventLogger;
+import com.alkl1m.auth.util.SigningKey;
+import com.alkl1m.auth.util.SigningKeys;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SignedRefreshTokenServiceImplTest {
+
+    private static final String SECRET = "YiJW5JhK3uv6q8InoJgQYP3hmOEP/79009Y/6/Xeamxq9DnYSVZzU1m5iFRCNWymmBAmLmYmY2C1KcSqX5aELlN7fkLdJtehwaSjWotfrESvUIap6VI9GyMglmeuBPTfFQMHJM7qhLwZQXHIrA3sRjvSrDHNTffuEHmKqtWuXgIX";
+
+    @Mock
+    private RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    @Mock
+    private SecurityEventLogger securityEventLogger;
+    @Mock
+    private SigningKeyService signingKeyService;
+
+    @InjectMocks
+    private SignedRefreshTokenServiceImpl signedRefreshTokenService;
+
+    private final UserDetailsImpl userDetails = new UserDetailsImpl(1L, "login", null, null, List.of());
+    private final SigningKey ringKey = SigningKeys.generate(SigningKeys.ES256);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(signedRefreshTokenService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(signedRefreshTokenService, "refreshMode", "signed");
+        ReflectionTestUtils.setField(signedRefreshTokenService, "refreshTokenDurationMs", 3600000L);
+        ReflectionTestUtils.setField(signedRefreshTokenService, "reuseGraceMs", 5000L);
+        lenient().when(signingKeyService.getActiveKey()).thenReturn(ringKey);
+        lenient().when(signingKeyService.findByKid(ringKey.kid())).thenReturn(ringKey);
+        signedRefreshTokenService.init();
+    }
+
+    @Test
+    void testRotate_withCurrentGeneration_advancesFamily() {
+        String token = signedRefreshTokenService.issue(userDetails);
+        ArgumentCaptor<String> familyId = ArgumentCaptor.forClass(String.class);
+        verify(refreshTokenFamilyRepository).insert(familyId.capture(), eq(1L), any(Instant.class), any(Instant.class));
+        TokenClaims claims = mock(TokenClaims.class);
+        when(claims.getId()).thenReturn(1L);
+        when(claims.getLogin()).thenReturn("login");
+        when(refreshTokenFamilyRepository.advance(eq(familyId.getValue()), eq(0), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.of(claims));
+
+        RotatedRefreshToken rotated = signedRefreshTokenService.rotate(token).get();
+
+        assertSame(claims, rotated.claims());
+        when(refreshTokenFamilyRepository.advance(eq(familyId.getValue()), eq(1), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.of(claims));
+        assertTrue(signedRefreshTokenService.rotate(rotated.token()).isPresent());
+    }
+
+    @Test
+    void testRotate_withReusedToken_deletesFamily() {
+        String token = signedRefreshTokenService.issue(userDetails);
+        when(refreshTokenFamilyRepository.advance(anyString(), eq(0), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.empty());
+        when(refreshTokenFamilyRepository.findById(anyString()))
+                .thenReturn(Optional.of(family(1, Instant.now().minusSeconds(60))));
+
+        assertTrue(signedRefreshTokenService.rotate(token).isEmpty());
+        verify(refreshTokenFamilyRepository).deleteByFamilyId(anyString());
+        verify(securityEventLogger).record(eq(ESecurityEvent.REFRESH_TOKEN_REUSED), any());
+    }
+
+    @Test
+    void testRotate_withPreviousGenerationWithinGrace_keepsFamily() {
+        String token = signedRefreshTokenService.issue(userDetails);
+        when(refreshTokenFamilyRepository.advance(anyString(), eq(0), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.empty());
+        when(refreshTokenFamilyRepository.findById(anyString()))
+                .thenReturn(Optional.of(family(1, Instant.now().minusSeconds(1))));
+
+        assertTrue(signedRefreshTokenService.rotate(token).isEmpty());
+        verify(refreshTokenFamilyRepository, never()).deleteByFamilyId(anyString());
+        verifyNoInteractions(securityEventLogger);
+    }
+
+    @Test
+    void testRotate_withClosedFamily_rejectsWithoutReuseEvent() {
+        String token = signedRefreshTokenService.issue(userDetails);
+        when(refreshTokenFamilyRepository.advance(anyString(), eq(0), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.empty());
+        when(refreshTokenFamilyRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        assertTrue(signedRefreshTokenService.rotate(token).isEmpty());
+        verify(refreshTokenFamilyRepository, never()).deleteByFamilyId(anyString());
+        verifyNoInteractions(securityEventLogger);
+    }
+
+    private static RefreshTokenFamily family(int generation, Instant rotatedAt) {
+        return RefreshTokenFamily.builder()
+                .familyId("family")
+                .userId(1L)
+                .generation(generation)
+                .expiresAt(rotatedAt.plusMillis(3600000L))
+                .createdAt(rotatedAt)
+                .build();
+    }
+
+    @Test
+    void testRotate_withTamperedToken_rejectsWithoutQuery() {
+        String token = signedRefreshTokenService.issue(userDetails);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(signedRefreshTokenService.rotate(tampered).isEmpty());
+        verify(refreshTokenFamilyRepository).insert(anyString(), eq(1L), any(Instant.class), any(Instant.class));
+        verify(refreshTokenFamilyRepository, never())
+                .advance(anyString(), any(Integer.class), any(Instant.class), any(Instant.class));
+        verifyNoInteractions(securityEventLogger);
+    }
+
+    @Test
+    void testIssue_tokenIsNotAcceptedAsAccessToken() {
+        String token = signedRefreshTokenService.issue(userDetails);
+        SecretKey accessKey = (SecretKey) SigningKeys.hmac(null, SECRET).verificationKey();
+
+        assertThrows(JwtException.class, () -> Jwts.parser().verifyWith(accessKey).build().parseSignedClaims(token));
+        assertThrows(JwtException.class, () -> Jwts.parser().verifyWith((PublicKey) ringKey.verificationKey())
+                .build().parseSignedClaims(token));
+    }
+
+    @Test
+    void testRotate_withKidLeftRing_rejectsWithoutQuery() {
+        String token = signedRefreshTokenService.issue(userDetails);
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        when(signingKeyService.findByKid(ringKey.kid())).thenReturn(null);
+
+        assertTrue(header.contains("\"kid\":\"" + ringKey.kid() + "\""));
+        assertTrue(signedRefreshTokenService.rotate(token).isEmpty());
+        verify(refreshTokenFamilyRepository, never())
+                .advance(anyString(), any(Integer.class), any(Instant.class), any(Instant.class));
+    }
+
+    @Test
+    void testRotate_withLegacyTokenWithoutKid_verifiesWithSecretDerivedKey() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Decoders.BASE64.decode(SECRET), "HmacSHA256"));
+        String token = Jwts.builder()
+                .subject("login")
+                .claim("id", 1L)
+                .claim("fam", "family")
+                .claim("gen", 0)
+                .expiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(mac.doFinal("refresh-token".getBytes(StandardCharsets.UTF_8))))
+                .compact();
+
+        signedRefreshTokenService.rotate(token);
+
+        verify(refreshTokenFamilyRepository).advance(eq("family"), eq(0), any(Instant.class), any(Instant.class));
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.entity.JwtSigningKey;
+import com.alkl1m.auth.repository.JwtSigningKeyRepository;
+import com.alkl1m.auth.util.SigningKey;
+import com.alkl1m.auth.util.SigningKeys;
+import com.alkl1m.auth.util.VerifiedTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SigningKeyServiceImplTest {
+
+    private static final String SECRET = "YiJW5JhK3uv6q8InoJgQYP3hmOEP/79009Y/6/Xeamxq9DnYSVZzU1m5iFRCNWymmBAmLmYmY2C1KcSqX5aELlN7fkLdJtehwaSjWotfrESvUIap6VI9GyMglmeuBPTfFQMHJM7qhLwZQXHIrA3sRjvSrDHNTffuEHmKqtWuXgIX";
+
+    @Mock
+    private JwtSigningKeyRepository signingKeyRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @InjectMocks
+    private SigningKeyServiceImpl signingKeyService;
+
+    private final List<JwtSigningKey> storedKeys = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(signingKeyService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(signingKeyService, "algorithm", SigningKeys.ES256);
+        ReflectionTestUtils.setField(signingKeyService, "keyId", "");
+        ReflectionTestUtils.setField(signingKeyService, "privateKey", "");
+        ReflectionTestUtils.setField(signingKeyService, "publicKey", "");
+        ReflectionTestUtils.setField(signingKeyService, "jwtExpirationMs", 3600000L);
+        ReflectionTestUtils.setField(signingKeyService, "unknownKidRefreshIntervalMs", 10000L);
+        ReflectionTestUtils.setField(signingKeyService, "refreshIntervalMs", 60000L);
+        ReflectionTestUtils.setField(signingKeyService, "jwksMaxAgeSeconds", 300L);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        when(signingKeyRepository.findUsable(any(Instant.class))).thenAnswer(invocation -> List.copyOf(storedKeys));
+        when(signingKeyRepository.save(any(JwtSigningKey.class))).thenAnswer(invocation -> {
+            JwtSigningKey entity = invocation.getArgument(0);
+            storedKeys.add(entity);
+            return entity;
+        });
+    }
+
+    @Test
+    void testInit_withEmptyTable_storesAndActivatesNewKey() {
+        signingKeyService.init();
+
+        assertEquals(1, storedKeys.size());
+        assertEquals(storedKeys.get(0).getKid(), signingKeyService.getActiveKey().kid());
+        assertEquals(1, signingKeyService.getPublishedKeys().size());
+        verify(signingKeyRepository).lock(anyLong());
+    }
+
+    @Test
+    void testInit_withHs256AndEmptyTable_seedsRingWithConfiguredSecret() {
+        ReflectionTestUtils.setField(signingKeyService, "algorithm", SigningKeys.HS256);
+        when(signingKeyRepository.existsByKid(any())).thenAnswer(invocation -> storedKeys.stream()
+                .anyMatch(entity -> entity.getKid().equals(invocation.getArgument(0))));
+        SigningKey secretKey = SigningKeys.hmac(null, SECRET);
+
+        signingKeyService.init();
+        signingKeyService.init();
+
+        assertEquals(1, storedKeys.size());
+        assertEquals(secretKey.kid(), signingKeyService.getActiveKey().kid());
+        assertEquals(secretKey.signingKey(), signingKeyService.getActiveKey().signingKey());
+        assertEquals(0, signingKeyService.getPublishedKeys().size());
+    }
+
+    @Test
+    void testInit_withStoredKey_keepsStoredKey() {
+        signingKeyService.init();
+        String storedKid = signingKeyService.getActiveKey().kid();
+
+        signingKeyService.init();
+
+        assertEquals(1, storedKeys.size());
+        assertEquals(storedKid, signingKeyService.getActiveKey().kid());
+        verify(signingKeyRepository, times(2)).lock(anyLong());
+    }
+
+    @Test
+    void testInit_withChangedAlgorithm_schedulesKeyOfNewAlgorithm() {
+        signingKeyService.init();
+        SigningKey previousKey = signingKeyService.getActiveKey();
+        retireOnRotation();
+        ReflectionTestUtils.setField(signingKeyService, "algorithm", SigningKeys.EDDSA);
+
+        signingKeyService.init();
+
+        assertEquals(2, storedKeys.size());
+        assertEquals(SigningKeys.EDDSA, storedKeys.get(1).getAlgorithm());
+        assertEquals(previousKey.kid(), signingKeyService.getActiveKey().kid());
+    }
+
+    @Test
+    void testInit_withChangedConfiguredKey_schedulesConfiguredKey() {
+        signingKeyService.init();
+        SigningKey previousKey = signingKeyService.getActiveKey();
+        retireOnRotation();
+        SigningKey configuredKey = SigningKeys.generate(SigningKeys.ES256);
+        ReflectionTestUtils.setField(signingKeyService, "privateKey", SigningKeys.encode(configuredKey.signingKey()));
+        ReflectionTestUtils.setField(signingKeyService, "publicKey", SigningKeys.encode(configuredKey.verificationKey()));
+
+        signingKeyService.init();
+
+        assertEquals(2, storedKeys.size());
+        assertEquals(configuredKey.kid(), storedKeys.get(1).getKid());
+        assertNotEquals(configuredKey.kid(), previousKey.kid());
+        assertEquals(previousKey.kid(), signingKeyService.getActiveKey().kid());
+        assertNotNull(signingKeyService.findByKid(configuredKey.kid()));
+    }
+
+    @Test
+    void testRotate_beforeActivation_publishesNewKeyButSignsWithPrevious() {
+        signingKeyService.init();
+        SigningKey previousKey = signingKeyService.getActiveKey();
+        retireOnRotation();
+
+        SigningKey newKey = signingKeyService.rotate();
+
+        verify(signingKeyRepository).retireAllExcept(eq(newKey.kid()), any(Instant.class));
+        assertEquals(previousKey.kid(), signingKeyService.getActiveKey().kid());
+        assertNotNull(signingKeyService.findByKid(newKey.kid()));
+        assertEquals(2, signingKeyService.getPublishedKeys().size());
+    }
+
+    @Test
+    void testRotate_afterActivation_signsWithNewKeyAndKeepsPreviousForVerification() {
+        ReflectionTestUtils.setField(signingKeyService, "refreshIntervalMs", 0L);
+        ReflectionTestUtils.setField(signingKeyService, "jwksMaxAgeSeconds", 0L);
+        signingKeyService.init();
+        SigningKey previousKey = signingKeyService.getActiveKey();
+        retireOnRotation();
+
+        SigningKey newKey = signingKeyService.rotate();
+
+        assertEquals(newKey.kid(), signingKeyService.getActiveKey().kid());
+        assertNotNull(signingKeyService.findByKid(previousKey.kid()));
+    }
+
+    private void retireOnRotation() {
+        when(signingKeyRepository.retireAllExcept(any(String.class), any(Instant.class))).thenAnswer(invocation -> {
+            storedKeys.stream()
+                    .filter(key -> key.getRetiredAt() == null && !key.getKid().equals(invocation.getArgument(0)))
+                    .forEach(key -> key.setRetiredAt(invocation.getArgument(1)));
+            return 1;
+        });
+    }
+
+    @Test
+    void testRefresh_afterKeyLeavesRing_clearsVerifiedTokenCache() {
+        signingKeyService.init();
+        signingKeyService.refresh();
+        verify(verifiedTokenCache, never()).clear();
+
+        storedKeys.clear();
+        signingKeyService.refresh();
+
+        verify(verifiedTokenCache).clear();
+    }
+
+    @Test
+    void testFindByKid_withoutKid_returnsLegacySecret() {
+        signingKeyService.init();
+
+        assertEquals(SigningKeys.hmac(null, SECRET).kid(), signingKeyService.findByKid(null).kid());
+        assertNull(signingKeyService.findByKid("unknown"));
+    }
+
+}
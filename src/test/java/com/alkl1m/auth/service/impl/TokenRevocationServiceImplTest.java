@@ -0,0 +1,83 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.entity.RevokedToken;
+import com.alkl1m.auth.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceImplTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @InjectMocks
+    private TokenRevocationServiceImpl tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tokenRevocationService, "jwtExpirationMs", 3600000L);
+        ReflectionTestUtils.setField(tokenRevocationService, "expectedTokens", 1000);
+        ReflectionTestUtils.setField(tokenRevocationService, "falsePositiveRate", 0.01);
+    }
+
+    @Test
+    void testIsRevoked_withRevokedJti_returnsTrue() {
+        when(revokedTokenRepository.findByExpiresAtAfter(any(Instant.class))).thenReturn(List.of());
+        tokenRevocationService.init();
+
+        tokenRevocationService.revokeToken("jti-1", new Date(System.currentTimeMillis() + 60000));
+
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+        assertTrue(tokenRevocationService.isRevoked("jti-1", 1L, System.currentTimeMillis()));
+        assertFalse(tokenRevocationService.isRevoked("jti-2", 1L, System.currentTimeMillis()));
+    }
+
+    @Test
+    void testRevokeToken_withExpiredToken_doesNotStoreIt() {
+        when(revokedTokenRepository.findByExpiresAtAfter(any(Instant.class))).thenReturn(List.of());
+        tokenRevocationService.init();
+
+        tokenRevocationService.revokeToken("jti-1", new Date(System.currentTimeMillis() - 1000));
+
+        verify(revokedTokenRepository, never()).save(any(RevokedToken.class));
+        assertFalse(tokenRevocationService.isRevoked("jti-1", 1L, System.currentTimeMillis()));
+    }
+
+    @Test
+    void testIsRevoked_withRevokedUser_rejectsOnlyTokensIssuedBefore() {
+        long now = System.currentTimeMillis();
+        when(revokedTokenRepository.findByExpiresAtAfter(any(Instant.class))).thenReturn(List.of(
+                RevokedToken.builder()
+                        .userId(1L)
+                        .revokedAt(Instant.ofEpochMilli(now))
+                        .expiresAt(Instant.ofEpochMilli(now + 3600000))
+                        .build()));
+
+        tokenRevocationService.init();
+
+        verify(revokedTokenRepository).deleteExpired(any(Instant.class));
+        assertTrue(tokenRevocationService.isRevoked("jti-1", 1L, now - 60000));
+        assertTrue(tokenRevocationService.isRevoked("jti-1", 1L, now - 1));
+        assertFalse(tokenRevocationService.isRevoked("jti-1", 1L, now + 1));
+        assertFalse(tokenRevocationService.isRevoked("jti-1", 1L, now + 2000));
+        assertFalse(tokenRevocationService.isRevoked("jti-1", 2L, now - 60000));
+    }
+
+}
@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,4 +50,14 @@ class UserDetailsServiceImplTest {
         assertEquals(userDetails.getPassword(), user.getPassword());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testUpdatePassword_withUpgradedHash_savesHash() {
+        UserDetails userDetails = UserDetailsImpl.build(user);
+
+        UserDetails updated = userDetailsService.updatePassword(userDetails, "{bcrypt}hash");
+
+        verify(userRepository).updatePasswordByLogin("login", "{bcrypt}hash");
+        assertEquals("{bcrypt}hash", updated.getPassword());
+    }
+
+}
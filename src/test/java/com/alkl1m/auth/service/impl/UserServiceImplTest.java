@@ -0,0 +1,76 @@
+package com.alkl1m.auth.service.impl;
+
+import com.alkl1m.auth.domain.entity.Role;
+import com.alkl1m.auth.domain.entity.User;
+import com.alkl1m.auth.domain.enums.ERole;
+import com.alkl1m.auth.domain.exception.UserAlreadyExistsException;
+import com.alkl1m.auth.repository.RoleRepository;
+import com.alkl1m.auth.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    private final Role role = new Role(1L, ERole.USER);
+
+    @BeforeEach
+    void setUp() {
+        when(roleRepository.findByName(ERole.USER)).thenReturn(Optional.of(role));
+        when(roleRepository.getReferenceById(role.getId())).thenReturn(role);
+    }
+
+    @Test
+    void testSave_withNewUsers_insertsWithoutExistenceChecks() {
+        userService.save("login", "email@example.com", "password");
+        userService.save("other", "other@example.com", "password");
+
+        verify(roleRepository, times(1)).findByName(ERole.USER);
+        verify(userRepository, times(2)).saveAndFlush(any(User.class));
+        verify(userRepository, never()).existsByLogin(any());
+        verify(userRepository, never()).existsByEmail(any());
+    }
+
+    @Test
+    void testSave_withUniqueViolation_throwsUserAlreadyExists() {
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate",
+                new SQLException("duplicate key value violates unique constraint", "23505")));
+
+        assertThrows(UserAlreadyExistsException.class,
+                () -> userService.save("login", "email@example.com", "password"));
+    }
+
+    @Test
+    void testSave_withOtherIntegrityViolation_rethrows() {
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("not null",
+                new SQLException("null value in column violates not-null constraint", "23502")));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userService.save("login", "email@example.com", "password"));
+    }
+
+}
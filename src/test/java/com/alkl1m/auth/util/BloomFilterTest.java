@@ -0,0 +1,42 @@
+package com.alkl1m.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void testMightContain_withAddedValues_returnsTrue() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = UUID.randomUUID().toString();
+            bloomFilter.add(values[i]);
+        }
+
+        for (String value : values) {
+            assertTrue(bloomFilter.mightContain(value));
+        }
+    }
+
+    @Test
+    void testMightContain_withOtherValues_keepsFalsePositiveRateLow() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.add(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (bloomFilter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300);
+    }
+
+}
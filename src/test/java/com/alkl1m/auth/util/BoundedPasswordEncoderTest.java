@@ -0,0 +1,88 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.exception.PasswordHashingOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.close();
+    }
+
+    @Test
+    void testMatches_withIdleExecutor_delegates() {
+        encoder = new BoundedPasswordEncoder(NoOpPasswordEncoder.getInstance(), 1, 1, 1000, 1, meterRegistry);
+
+        assertEquals("secret", encoder.encode("secret"));
+        assertTrue(encoder.matches("secret", "secret"));
+        assertFalse(encoder.matches("secret", "other"));
+        assertEquals(3, meterRegistry.get("auth.password.queue.wait").timer().count());
+    }
+
+    @Test
+    void testEncode_withFullQueue_rejectsImmediately() throws InterruptedException {
+        encoder = new BoundedPasswordEncoder(blockingEncoder(), 1, 1, 5000, 3, meterRegistry);
+        CompletableFuture.runAsync(() -> encoder.encode("running"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture.runAsync(() -> encoder.encode("queued"));
+        while (meterRegistry.get("auth.password.queue.size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingOverloadedException e = assertThrows(PasswordHashingOverloadedException.class,
+                () -> encoder.encode("rejected"));
+
+        assertEquals(3, e.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("auth.password.rejected").tag("reason", "queue_full").counter().count(), 0.0);
+    }
+
+    @Test
+    void testEncode_afterDeadline_rejects() throws InterruptedException {
+        encoder = new BoundedPasswordEncoder(blockingEncoder(), 1, 1, 50, 1, meterRegistry);
+
+        assertThrows(PasswordHashingOverloadedException.class, () -> encoder.encode("slow"));
+        assertEquals(1.0, meterRegistry.get("auth.password.rejected").tag("reason", "deadline").counter().count(), 0.0);
+    }
+
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.enums.ETokenFailure;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+class JwtPreValidatorTest {
+
+    private static final String HEADER = encode("{\"alg\":\"HS256\"}");
+
+    private final JwtPreValidator preValidator = new JwtPreValidator(new SimpleMeterRegistry());
+
+    @Test
+    void testCheck_withNotExpiredToken_returnsNull() {
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+
+        assertNull(preValidator.check(token("{\"sub\":\"exp\",\"exp\":" + exp + "}")));
+    }
+
+    @Test
+    void testCheck_withExpiredToken_returnsExpired() {
+        long exp = System.currentTimeMillis() / 1000 - 60;
+
+        assertEquals(ETokenFailure.EXPIRED, preValidator.check(token("{\"sub\":\"user\",\"exp\" : " + exp + "}")));
+        assertEquals(1, preValidator.getRejections(ETokenFailure.EXPIRED));
+    }
+
+    @Test
+    void testCheck_withoutExp_returnsNull() {
+        assertNull(preValidator.check(token("{\"sub\":\"user\"}")));
+    }
+
+    @Test
+    void testCheck_withBrokenStructure_returnsMalformed() {
+        assertEquals(ETokenFailure.MALFORMED, preValidator.check("not a token"));
+        assertEquals(ETokenFailure.MALFORMED, preValidator.check("a.b"));
+        assertEquals(ETokenFailure.MALFORMED, preValidator.check("a.b.c.d"));
+        assertEquals(ETokenFailure.MALFORMED, preValidator.check(".b.c"));
+        assertEquals(ETokenFailure.MALFORMED, preValidator.check("a.bcdef.c"));
+        assertEquals(5, preValidator.getRejections(ETokenFailure.MALFORMED));
+    }
+
+    @Test
+    void testCheck_withoutSignature_returnsUnsupported() {
+        assertEquals(ETokenFailure.UNSUPPORTED, preValidator.check(HEADER + "." + encode("{}") + "."));
+    }
+
+    @Test
+    void testCheck_withEmptyToken_returnsEmpty() {
+        assertEquals(ETokenFailure.EMPTY, preValidator.check(""));
+        assertEquals(ETokenFailure.EMPTY, preValidator.check(null));
+    }
+
+    private static String token(String payload) {
+        return HEADER + "." + encode(payload) + ".c2lnbmF0dXJl";
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.enums.ETokenFailure;
+import com.alkl1m.auth.service.SigningKeyService;
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "YiJW5JhK3uv6q8InoJgQYP3hmOEP/79009Y/6/Xeamxq9DnYSVZzU1m5iFRCNWymmBAmLmYmY2C1KcSqX5aELlN7fkLdJtehwaSjWotfrESvUIap6VI9GyMglmeuBPTfFQMHJM7qhLwZQXHIrA3sRjvSrDHNTffuEHmKqtWuXgIX";
+
+    private JwtUtils jwtUtils;
+    private UserDetailsImpl userDetails;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = newJwtUtils(3600000, SigningKeys.HS256);
+        userDetails = new UserDetailsImpl(1L, "login", "email@example.com", "password",
+                List.of(new SimpleGrantedAuthority("USER")));
+    }
+
+    @Test
+    void testVerifyJwtToken_withValidToken_returnsClaims() {
+        String token = jwtUtils.generateTokenFromUserDetails(userDetails);
+
+        JwtVerification verification = jwtUtils.verifyJwtToken(token);
+
+        assertTrue(verification.isValid());
+        assertEquals("login", verification.claims().getSubject());
+    }
+
+    @Test
+    void testVerifyJwtToken_withValidToken_keepsIssuedAtMillis() {
+        long before = System.currentTimeMillis();
+        String token = jwtUtils.generateTokenFromUserDetails(userDetails);
+
+        long issuedAtMs = VerifiedToken.issuedAtMs(jwtUtils.verifyJwtToken(token).claims());
+
+        assertTrue(issuedAtMs >= before && issuedAtMs <= System.currentTimeMillis());
+    }
+
+    @Test
+    void testVerifyJwtToken_withExpiredToken_returnsExpired() {
+        String token = newJwtUtils(-1000, SigningKeys.HS256).generateTokenFromUserDetails(userDetails);
+
+        JwtVerification verification = jwtUtils.verifyJwtToken(token);
+
+        assertFalse(verification.isValid());
+        assertEquals(ETokenFailure.EXPIRED, verification.failure());
+    }
+
+    @Test
+    void testVerifyJwtToken_withTamperedToken_returnsInvalidSignature() {
+        String token = jwtUtils.generateTokenFromUserDetails(userDetails);
+        String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+        assertEquals(ETokenFailure.INVALID_SIGNATURE, jwtUtils.verifyJwtToken(tampered).failure());
+    }
+
+    @Test
+    void testVerifyJwtToken_withGarbage_returnsMalformed() {
+        assertEquals(ETokenFailure.MALFORMED, jwtUtils.verifyJwtToken("not.a.jwt").failure());
+    }
+
+    @Test
+    void testGetUserDetailsFromClaims_withValidToken_returnsPrincipal() {
+        String token = jwtUtils.generateTokenFromUserDetails(userDetails);
+
+        UserDetailsImpl principal = jwtUtils.getUserDetailsFromClaims(jwtUtils.verifyJwtToken(token).claims());
+
+        assertEquals(userDetails.getId(), principal.getId());
+        assertEquals(userDetails.getLogin(), principal.getLogin());
+        assertEquals(List.of(new SimpleGrantedAuthority("USER")), List.copyOf(principal.getAuthorities()));
+    }
+
+    @Test
+    void testGetUserDetailsFromClaims_withCompactRoles_returnsPrincipal() {
+        JwtUtils compact = newJwtUtils(3600000, SigningKeys.HS256);
+        ReflectionTestUtils.setField(compact, "compactRoles", true);
+        String token = compact.generateTokenFromUserDetails(userDetails);
+
+        JwtVerification verification = jwtUtils.verifyJwtToken(token);
+        UserDetailsImpl principal = jwtUtils.getUserDetailsFromClaims(verification.claims());
+
+        assertEquals("1:1", verification.claims().get(RoleCodec.CLAIM));
+        assertFalse(verification.claims().containsKey("roles"));
+        assertEquals(List.of(new SimpleGrantedAuthority("USER")), List.copyOf(principal.getAuthorities()));
+    }
+
+    @Test
+    void testVerifyJwtToken_withEs256Token_returnsClaims() {
+        JwtUtils es256 = newJwtUtils(3600000, SigningKeys.ES256);
+        String token = es256.generateTokenFromUserDetails(userDetails);
+
+        assertTrue(es256.verifyJwtToken(token).isValid());
+        assertEquals(ETokenFailure.UNKNOWN_KEY, jwtUtils.verifyJwtToken(token).failure());
+    }
+
+    @Test
+    void testVerifyJwtToken_withEdDsaToken_returnsClaims() {
+        JwtUtils edDsa = newJwtUtils(3600000, SigningKeys.EDDSA);
+        String token = edDsa.generateTokenFromUserDetails(userDetails);
+
+        assertTrue(edDsa.verifyJwtToken(token).isValid());
+    }
+
+    private static JwtUtils newJwtUtils(int expirationMs, String algorithm) {
+        SigningKey activeKey = SigningKeys.HS256.equals(algorithm)
+                ? SigningKeys.hmac(null, SECRET)
+                : SigningKeys.generate(algorithm);
+
+        JwtUtils utils = new JwtUtils(new StaticSigningKeyService(activeKey),
+                new JwtPreValidator(new SimpleMeterRegistry()),
+                new SecurityEventLogger(1000, 5, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+        utils.init();
+        return utils;
+    }
+
+    private record StaticSigningKeyService(SigningKey activeKey) implements SigningKeyService {
+
+        @Override
+        public SigningKey getActiveKey() {
+            return activeKey;
+        }
+
+        @Override
+        public SigningKey findByKid(String kid) {
+            return Objects.equals(kid, activeKey.kid()) ? activeKey : null;
+        }
+
+        @Override
+        public List<SigningKey> getPublishedKeys() {
+            return List.of(activeKey);
+        }
+
+        @Override
+        public SigningKey rotate() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
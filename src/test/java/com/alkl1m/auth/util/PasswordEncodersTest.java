@@ -0,0 +1,57 @@
+package com.alkl1m.auth.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+class PasswordEncodersTest {
+
+    @Test
+    void testDelegating_withLegacyHash_matchesWithoutPrefix() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(PasswordEncoders.BCRYPT, 5);
+        String legacyHash = new BCryptPasswordEncoder(5).encode("password");
+
+        assertTrue(encoder.matches("password", legacyHash));
+        assertFalse(encoder.upgradeEncoding(legacyHash));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+    }
+
+    @Test
+    void testDelegating_withOtherAlgorithm_upgradesStoredHashes() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(PasswordEncoders.PBKDF2, 4);
+        String bcryptHash = PasswordEncoders.delegating(PasswordEncoders.BCRYPT, 4).encode("password");
+        String pbkdf2Hash = encoder.encode("password");
+
+        assertTrue(bcryptHash.startsWith("{bcrypt}"));
+        assertTrue(pbkdf2Hash.startsWith("{pbkdf2}"));
+        assertTrue(encoder.matches("password", bcryptHash));
+        assertTrue(encoder.upgradeEncoding(bcryptHash));
+        assertFalse(encoder.upgradeEncoding(pbkdf2Hash));
+    }
+
+    @Test
+    void testDelegating_withSharedUpgradeStrength_keepsHashesAtOrAboveIt() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(PasswordEncoders.BCRYPT, 6, 5);
+
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password")));
+        assertFalse(encoder.upgradeEncoding("{bcrypt}" + new BCryptPasswordEncoder(5).encode("password")));
+        assertTrue(encoder.upgradeEncoding("{bcrypt}" + new BCryptPasswordEncoder(4).encode("password")));
+        assertTrue(encoder.encode("password").startsWith("{bcrypt}$2a$06$"));
+    }
+
+    @Test
+    void testDelegating_withUnknownAlgorithm_throwsException() {
+        assertThrows(IllegalStateException.class, () -> PasswordEncoders.delegating("md5", 4));
+    }
+
+    @Test
+    void testCalibrateBCryptStrength_withZeroTarget_returnsMinStrength() {
+        assertEquals(4, PasswordEncoders.calibrateBCryptStrength(0, 4, 16));
+    }
+
+}
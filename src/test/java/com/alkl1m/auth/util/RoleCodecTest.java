@@ -0,0 +1,48 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.entity.Role;
+import com.alkl1m.auth.domain.enums.ERole;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+class RoleCodecTest {
+
+    @Test
+    void testDecode_withEncodedRoles_returnsSameAuthorities() {
+        int mask = RoleCodec.mask(Set.of(new Role(1L, ERole.USER), new Role(8L, ERole.ADMIN)));
+
+        String claim = RoleCodec.encode(mask);
+
+        assertEquals("1:81", claim);
+        assertEquals(List.of(new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority("ADMIN")),
+                RoleCodec.decode(claim));
+    }
+
+    @Test
+    void testDecode_withSameMask_returnsSharedList() {
+        assertSame(RoleCodec.decode("1:ff"), RoleCodec.authorities(0xff));
+        assertEquals(ERole.values().length, RoleCodec.decode("1:ff").size());
+    }
+
+    @Test
+    void testDecode_withUnknownVersionOrGarbage_returnsNull() {
+        assertNull(RoleCodec.decode("2:ff"));
+        assertNull(RoleCodec.decode("1:"));
+        assertNull(RoleCodec.decode("1:zz"));
+        assertNull(RoleCodec.decode("1:ffff"));
+    }
+
+    @Test
+    void testMaskOfAuthorities_withUnknownAuthority_returnsMinusOne() {
+        assertEquals(-1, RoleCodec.maskOfAuthorities(List.of(new SimpleGrantedAuthority("SCOPE_read"))));
+        assertEquals(2, RoleCodec.maskOfAuthorities(List.of("CREDIT_USER")));
+    }
+
+}
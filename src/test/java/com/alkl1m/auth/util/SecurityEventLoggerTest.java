@@ -0,0 +1,48 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.domain.enums.ESecurityEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+class SecurityEventLoggerTest {
+
+    @Test
+    void testRecord_withFloodOfEvents_logsOnlyLimitAndCountsAll() {
+        SecurityEventLogger securityEventLogger = new SecurityEventLogger(60000, 5, new SimpleMeterRegistry());
+
+        int logged = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (securityEventLogger.record(ESecurityEvent.TOKEN_EXPIRED, "expired")) {
+                logged++;
+            }
+        }
+
+        assertEquals(5, logged);
+        assertEquals(1000, securityEventLogger.getCount(ESecurityEvent.TOKEN_EXPIRED));
+    }
+
+    @Test
+    void testRecord_withDifferentReasons_limitsEachReasonSeparately() {
+        SecurityEventLogger securityEventLogger = new SecurityEventLogger(60000, 1, new SimpleMeterRegistry());
+
+        assertTrue(securityEventLogger.record(ESecurityEvent.TOKEN_MALFORMED, "malformed"));
+        assertFalse(securityEventLogger.record(ESecurityEvent.TOKEN_MALFORMED, "malformed"));
+        assertTrue(securityEventLogger.record(ESecurityEvent.UNAUTHORIZED, "unauthorized"));
+    }
+
+    @Test
+    void testRecord_afterWindow_logsAgain() throws InterruptedException {
+        SecurityEventLogger securityEventLogger = new SecurityEventLogger(50, 1, new SimpleMeterRegistry());
+
+        assertTrue(securityEventLogger.record(ESecurityEvent.TOKEN_EXPIRED, "expired"));
+        assertFalse(securityEventLogger.record(ESecurityEvent.TOKEN_EXPIRED, "expired"));
+        Thread.sleep(60);
+        assertTrue(securityEventLogger.record(ESecurityEvent.TOKEN_EXPIRED, "expired"));
+        securityEventLogger.logSummary();
+    }
+
+}
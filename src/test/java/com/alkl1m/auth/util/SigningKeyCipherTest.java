@@ -0,0 +1,38 @@
+package com.alkl1m.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+class SigningKeyCipherTest {
+
+    private static final String SECRET = "YiJW5JhK3uv6q8InoJgQYP3hmOEP/79009Y/6/Xeamxq9DnYSVZzU1m5iFRCNWymmBAmLmYmY2C1KcSqX5aELlN7fkLdJtehwaSjWotfrESvUIap6VI9GyMglmeuBPTfFQMHJM7qhLwZQXHIrA3sRjvSrDHNTffuEHmKqtWuXgIX";
+
+    @Test
+    void testEncrypt_withDerivedKey_roundTrips() {
+        SigningKeyCipher cipher = SigningKeyCipher.create("", SECRET);
+
+        String encrypted = cipher.encrypt("private-key");
+
+        assertTrue(cipher.isEncrypted(encrypted));
+        assertFalse(encrypted.contains("private-key"));
+        assertNotEquals(encrypted, cipher.encrypt("private-key"));
+        assertEquals("private-key", cipher.decrypt(encrypted));
+        assertEquals("legacy", cipher.decrypt("legacy"));
+    }
+
+    @Test
+    void testDecrypt_withOtherKey_throwsException() {
+        String encrypted = SigningKeyCipher.create("", SECRET).encrypt("private-key");
+        SigningKeyCipher other = SigningKeyCipher.create(Base64.getEncoder().encodeToString(new byte[32]), SECRET);
+
+        assertThrows(IllegalStateException.class, () -> other.decrypt(encrypted));
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.alkl1m.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+class SigningKeysTest {
+
+    @Test
+    void testFromEncoded_withGeneratedEs256Key_returnsSameKey() {
+        SigningKey generated = SigningKeys.generate(SigningKeys.ES256);
+
+        SigningKey decoded = SigningKeys.fromEncoded(null, SigningKeys.ES256,
+                SigningKeys.encode(generated.signingKey()), SigningKeys.encode(generated.verificationKey()));
+
+        assertEquals(generated.kid(), decoded.kid());
+        assertArrayEquals(generated.signingKey().getEncoded(), decoded.signingKey().getEncoded());
+    }
+
+    @Test
+    void testToJwk_withEs256Key_returnsPublicJwk() {
+        SigningKey signingKey = SigningKeys.generate(SigningKeys.ES256);
+
+        Map<String, Object> jwk = SigningKeys.toJwk(signingKey);
+
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals(signingKey.kid(), jwk.get("kid"));
+        assertEquals("ES256", jwk.get("alg"));
+        assertEquals("sig", jwk.get("use"));
+        assertFalse(jwk.containsKey("d"));
+    }
+
+    @Test
+    void testToJwk_withEdDsaKey_returnsOctetJwk() {
+        Map<String, Object> jwk = SigningKeys.toJwk(SigningKeys.generate(SigningKeys.EDDSA));
+
+        assertEquals("OKP", jwk.get("kty"));
+        assertEquals("Ed25519", jwk.get("crv"));
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.alkl1m.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+class SlidingWindowCounterTest {
+
+    @Test
+    void testEstimate_inNextWindow_weightsPreviousWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 100, 4, 16);
+        for (int i = 0; i < 10; i++) {
+            counter.increment("key", 10_000);
+        }
+
+        assertEquals(10, counter.estimate("key", 10_999));
+        assertEquals(7, counter.estimate("key", 11_250));
+        assertEquals(0, counter.estimate("key", 12_000));
+        assertEquals(0, counter.estimate("other", 10_000));
+    }
+
+    @Test
+    void testIncrement_overStripeCapacity_evictsLeastRecentlyUsedKey() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 100, 1, 2);
+        counter.increment("a", 10_000);
+        counter.increment("b", 10_000);
+        counter.increment("a", 10_000);
+        counter.increment("c", 10_000);
+
+        Map<String, Integer> snapshot = counter.snapshot(10_000);
+
+        assertEquals(Map.of("a", 2, "c", 1), snapshot);
+    }
+
+    @Test
+    void testIncrement_overStripeCapacity_keepsKeyAtLimit() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 2, 1, 2);
+        counter.increment("victim", 10_000);
+        counter.increment("victim", 10_000);
+        counter.increment("a", 10_000);
+        counter.increment("b", 10_000);
+
+        assertEquals(Map.of("victim", 2, "b", 1), counter.snapshot(10_000));
+    }
+
+    @Test
+    void testTryAcquire_atLimit_rejectsUntilReleased() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 2, 4, 16);
+
+        assertTrue(counter.tryAcquire("key", 10_000));
+        assertTrue(counter.tryAcquire("key", 10_000));
+        assertFalse(counter.tryAcquire("key", 10_000));
+
+        counter.release("key", 10_000);
+
+        assertTrue(counter.tryAcquire("key", 10_000));
+    }
+
+    @Test
+    void testReset_withKnownKey_removesCounter() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 100, 4, 16);
+        counter.increment("key", 10_000);
+
+        assertTrue(counter.reset("key"));
+        assertFalse(counter.reset("key"));
+        assertEquals(0, counter.estimate("key", 10_000));
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.alkl1m.auth.util;
+
+import com.alkl1m.auth.service.impl.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache cache;
+    private UserDetailsImpl userDetails;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(true, 100, new SimpleMeterRegistry());
+        userDetails = new UserDetailsImpl(1L, "login", null, null, List.of());
+    }
+
+    @Test
+    void testGet_withCachedToken_returnsPrincipal() {
+        cache.put("token", verifiedToken(System.currentTimeMillis() + 60000));
+
+        assertSame(userDetails, cache.get("token").userDetails());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void testGet_withExpiredToken_returnsNull() {
+        cache.put("token", verifiedToken(System.currentTimeMillis() - 1));
+
+        assertNull(cache.get("token"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testGet_withDisabledCache_returnsNull() {
+        VerifiedTokenCache disabled = new VerifiedTokenCache(false, 100, new SimpleMeterRegistry());
+        disabled.put("token", verifiedToken(System.currentTimeMillis() + 60000));
+
+        assertNull(disabled.get("token"));
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void testClear_removesCachedTokens() {
+        cache.put("token", verifiedToken(System.currentTimeMillis() + 60000));
+
+        cache.clear();
+
+        assertNull(cache.get("token"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testPut_withConcurrentWriters_keepsSizeBounded() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        VerifiedToken verifiedToken = verifiedToken(System.currentTimeMillis() + 60000);
+        for (int i = 0; i < 10000; i++) {
+            String token = "token-" + i;
+            executor.execute(() -> cache.put(token, verifiedToken));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(cache.size() <= 100 + 8);
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    private VerifiedToken verifiedToken(long expiresAtMs) {
+        return new VerifiedToken(userDetails, "jti", System.currentTimeMillis(), expiresAtMs, System.currentTimeMillis());
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.alkl1m.auth.web.controller;
 
+import com.alkl1m.auth.StatementCounter;
 import com.alkl1m.auth.TestBeans;
 import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.Test;
@@ -14,12 +15,17 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import static org.junit.Assert.assertEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @Transactional
 @Testcontainers
 @AutoConfigureMockMvc
-@SpringBootTest(classes = TestBeans.class)
+@SpringBootTest(classes = TestBeans.class,
+        properties = {
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.alkl1m.auth.StatementCounter",
+                "application.security.password.bcrypt.strength=10"
+        })
 class AuthControllerTest {
 
     @Autowired
@@ -116,6 +122,30 @@ class AuthControllerTest {
                 );
     }
 
+    @Test
+    void testLoginUser_afterTooManyFailures_returnsTooManyRequests() throws Exception {
+        String request = """
+                    {
+                      "login": "Throttled User",
+                      "password": "password"
+                    }
+                """;
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(request))
+                    .andExpect(status().isBadRequest());
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpectAll(
+                        status().isTooManyRequests(),
+                        header().exists("Retry-After")
+                );
+    }
+
     @Test
     @Sql("/sql/user.sql")
     void testRefreshToken_withValidRequest_returnsValidData() throws Exception {
@@ -140,6 +170,33 @@ class AuthControllerTest {
                 );
     }
 
+    @Test
+    @Sql("/sql/user.sql")
+    void testRefreshToken_withReusedToken_returnsForbidden() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                    {
+                                      "login": "John Doe",
+                                      "password": "password"
+                                    }
+                                """))
+                .andReturn();
+        String jwtRefresh = mvcResult.getResponse().getCookie("jwt-refresh").getValue();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/refreshToken")
+                        .cookie(new Cookie("jwt-refresh", jwtRefresh)))
+                .andExpectAll(
+                        status().isOk(),
+                        cookie().exists("jwt"),
+                        cookie().exists("jwt-refresh")
+                );
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/refreshToken")
+                        .cookie(new Cookie("jwt-refresh", jwtRefresh)))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @Sql("/sql/user.sql")
     void testLogoutUser_withValidRequest_returnsValidMessage() throws Exception {
@@ -151,4 +208,80 @@ class AuthControllerTest {
                 );
     }
 
+    @Test
+    @Sql("/sql/user.sql")
+    void testLoginUser_withExistingUser_executesTwoStatements() throws Exception {
+        StatementCounter.reset();
+
+        login();
+
+        // пользователь с ролями (1), вставка refresh токена с вытеснением старых сессий (1)
+        assertEquals(2, StatementCounter.count());
+    }
+
+    @Test
+    void testRegisterUser_withCachedRole_executesTwoStatements() throws Exception {
+        signup("Jane Doe", "jane@example.com");
+        StatementCounter.reset();
+
+        signup("Jack Doe", "jack@example.com");
+
+        // вставка пользователя (1), вставка связи с ролью (1)
+        assertEquals(2, StatementCounter.count());
+    }
+
+    @Test
+    @Sql("/sql/user.sql")
+    void testLogoutUser_withSession_executesTwoStatements() throws Exception {
+        MvcResult login = login();
+        StatementCounter.reset();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/logout")
+                        .cookie(login.getResponse().getCookie("jwt"), login.getResponse().getCookie("jwt-refresh")))
+                .andExpect(status().isOk());
+
+        // удаление refresh токена по дайджесту (1), отзыв access токена (1)
+        assertEquals(2, StatementCounter.count());
+    }
+
+    @Test
+    @Sql("/sql/user.sql")
+    void testLogoutAll_withSession_executesTwoStatements() throws Exception {
+        MvcResult login = login();
+        StatementCounter.reset();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/logout-all")
+                        .cookie(login.getResponse().getCookie("jwt"), login.getResponse().getCookie("jwt-refresh")))
+                .andExpect(status().isOk());
+
+        // удаление всех refresh токенов по user_id (1), отзыв access токенов пользователя (1)
+        assertEquals(2, StatementCounter.count());
+    }
+
+    private void signup(String login, String email) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                    {
+                                      "login": "%s",
+                                      "email": "%s",
+                                      "password": "password"
+                                    }
+                                """.formatted(login, email)))
+                .andExpect(status().isOk());
+    }
+
+    private MvcResult login() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                    {
+                                      "login": "John Doe",
+                                      "password": "password"
+                                    }
+                                """))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
 }
\ No newline at end of file